@@ -0,0 +1,79 @@
+package fr.esiee.baba.bench;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.tools.LevelGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Levels used by the benchmarks: the bundled ones by file name ({@code level3.txt}), synthetic large boards named
+ * {@code tiled-RxC}, made of a bundled level repeated R times vertically and C times horizontally, and levels named
+ * {@code generated-HxW}, made by the {@link LevelGenerator} with its default settings and seed 1.
+ */
+final class BenchmarkLevels {
+    private static final String TILED_PREFIX = "tiled-";
+    private static final String GENERATED_PREFIX = "generated-";
+    private static final String TILE = "level1.txt";
+
+    private BenchmarkLevels() {
+    }
+
+    /**
+     * Reads the lines of a benchmark level, in the text format of {@link Game#parseLevel(List, String)}.
+     *
+     * @param name the name of the level.
+     * @return the lines of the level file.
+     */
+    static List<String> lines(String name) {
+        if (name.startsWith(GENERATED_PREFIX)) {
+            var size = name.substring(GENERATED_PREFIX.length()).split("x");
+            return LevelGenerator.generate(
+                    LevelGenerator.Settings.of(Integer.parseInt(size[0]), Integer.parseInt(size[1]), 1));
+        }
+        if (!name.startsWith(TILED_PREFIX)) {
+            return bundled(name);
+        }
+        var counts = name.substring(TILED_PREFIX.length()).split("x");
+        var rows = Integer.parseInt(counts[0]);
+        var columns = Integer.parseInt(counts[1]);
+        var tile = bundled(TILE);
+        var lines = new ArrayList<String>(tile.size() * rows);
+        for (var r = 0; r < rows; r++) {
+            for (var line : tile) {
+                if (!line.isEmpty()) {
+                    // Tiles are glued together, so every line must end with its separator
+                    lines.add((line.endsWith(" ") ? line : line + " ").repeat(columns));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Parses a benchmark level.
+     *
+     * @param name the name of the level.
+     * @return a new level.
+     */
+    static Level load(String name) {
+        return Game.parseLevel(lines(name), name);
+    }
+
+    private static List<String> bundled(String name) {
+        var stream = BenchmarkLevels.class.getResourceAsStream("/text/" + name);
+        Objects.requireNonNull(stream, "No bundled level named " + name);
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package fr.esiee.baba.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.esiee.baba.controller.BinaryLevelFormat;
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.controller.LevelParser;
+import fr.esiee.baba.model.Cellule;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.web.GridJsonEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of moving whole grids around: parsing a level file (from lines or straight from its bytes) or reading its
+ * compiled form, snapshotting and restoring the grid (the former UNDO path), and serializing the grid to JSON for the
+ * clients of the original protocol, through Jackson as the handler used to or with the hand-written encoder it uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GridBenchmark {
+
+    @Param({ "level0.txt", "level3.txt", "level7.txt", "tiled-8x8", "tiled-32x32",
+            "generated-256x256", "generated-1024x1024" })
+    public String level;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GridJsonEncoder gridJson = new GridJsonEncoder();
+    private List<String> lines;
+    private byte[] text;
+    private byte[] compiled;
+    private Level current;
+    private List<List<Cellule>> snapshot;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void load() {
+        lines = BenchmarkLevels.lines(level);
+        current = Game.parseLevel(lines, level);
+        text = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        compiled = BinaryLevelFormat.write(current);
+        snapshot = current.copyGrid();
+    }
+
+    @Benchmark
+    public Level parseLevel() {
+        return Game.parseLevel(lines, level);
+    }
+
+    @Benchmark
+    public Level parseLevelBytes() {
+        return LevelParser.parse(ByteBuffer.wrap(text), level);
+    }
+
+    @Benchmark
+    public Level readCompiledLevel() {
+        return BinaryLevelFormat.read(ByteBuffer.wrap(compiled), level);
+    }
+
+    @Benchmark
+    public List<List<Cellule>> copyGrid() {
+        return current.copyGrid();
+    }
+
+    @Benchmark
+    public Level restoreGrid() {
+        current.restoreGrid(snapshot);
+        return current;
+    }
+
+    @Benchmark
+    public String serializeGrid() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(current.getGrid());
+    }
+
+    @Benchmark
+    public byte[] encodeGridJson() {
+        return gridJson.encode(current.getBoard());
+    }
+}
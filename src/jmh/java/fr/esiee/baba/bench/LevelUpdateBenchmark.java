@@ -0,0 +1,55 @@
+package fr.esiee.baba.bench;
+
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one player move: {@link Level#update(Direction, boolean)} on a fresh copy of the level, in each direction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LevelUpdateBenchmark {
+
+    @Param({ "level0.txt", "level1.txt", "level2.txt", "level3.txt", "level4.txt", "level5.txt", "level6.txt",
+            "level7.txt", "tiled-8x8", "tiled-32x32", "generated-256x256", "generated-1024x1024" })
+    public String level;
+
+    @Param({ "UP", "DOWN", "LEFT", "RIGHT" })
+    public Direction direction;
+
+    private Level template;
+    private Level current;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void load() {
+        template = BenchmarkLevels.load(level);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void copy() {
+        current = template.copy();
+    }
+
+    @Benchmark
+    public Level update() {
+        current.update(direction, false);
+        return current;
+    }
+}
@@ -0,0 +1,48 @@
+package fr.esiee.baba.bench;
+
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.model.Rules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deriving the rules from a whole grid with {@link Rules#initRules(Level)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RulesBenchmark {
+
+    @Param({ "level0.txt", "level3.txt", "level7.txt", "tiled-8x8", "tiled-32x32",
+            "generated-256x256", "generated-1024x1024" })
+    public String level;
+
+    private Level current;
+    private Rules rules;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void load() {
+        current = BenchmarkLevels.load(level);
+        rules = current.getRules();
+    }
+
+    @Benchmark
+    public Rules initRules() {
+        rules.initRules(current);
+        return rules;
+    }
+}
@@ -0,0 +1,96 @@
+package fr.esiee.baba.bench;
+
+import fr.esiee.baba.model.InteractionResolver;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.model.Property;
+import fr.esiee.baba.model.Transmutation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of each whole-grid {@link Transmutation} pass, and of the fused {@link InteractionResolver} replacing them.
+ * Every invocation works on a fresh copy of the level, so passes that remove elements measure the same work each time.
+ * The scoped resolution only looks at the cells of the YOU elements, as after a move: its cost should not follow the
+ * size of the board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransmutationBenchmark {
+
+    @Param({ "level0.txt", "level3.txt", "level7.txt", "tiled-8x8", "tiled-32x32",
+            "generated-256x256", "generated-1024x1024" })
+    public String level;
+
+    private Level template;
+    private Level current;
+    private Transmutation transmutation;
+    private BitSet moveScope;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void load() {
+        template = BenchmarkLevels.load(level);
+        moveScope = new BitSet();
+        var you = template.getRules().getElementsWithProperty(Property.YOU);
+        for (var index : template.getBoard().cellsOf(you)) {
+            moveScope.set(index);
+        }
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void copy() {
+        current = template.copy();
+        transmutation = new Transmutation(current, current.getRules());
+    }
+
+    @Benchmark
+    public Level checkMelt() {
+        transmutation.checkMelt();
+        return current;
+    }
+
+    @Benchmark
+    public Level checkDefeat() {
+        transmutation.checkDefeat();
+        return current;
+    }
+
+    @Benchmark
+    public Level checkSink() {
+        transmutation.checkSink();
+        return current;
+    }
+
+    @Benchmark
+    public Level applyTransformations() {
+        for (var entry : current.getRules().getTransformationRules().entrySet()) {
+            transmutation.applyTransformation(entry.getKey(), entry.getValue());
+        }
+        return current;
+    }
+
+    @Benchmark
+    public boolean resolveInteractions() {
+        return new InteractionResolver(current, current.getRules()).resolve(null);
+    }
+
+    @Benchmark
+    public boolean resolveInteractionsScoped() {
+        return new InteractionResolver(current, current.getRules()).resolve(moveScope);
+    }
+}
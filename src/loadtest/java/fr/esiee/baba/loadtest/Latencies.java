@@ -0,0 +1,65 @@
+package fr.esiee.baba.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Recorded durations, kept exactly so that the high percentiles are not approximated.
+ */
+final class Latencies {
+    private long[] values = new long[256];
+    private int count;
+    private boolean sorted = true;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds.
+     */
+    void add(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Adds every duration recorded by another instance.
+     *
+     * @param other the durations to add.
+     */
+    void addAll(Latencies other) {
+        if (count + other.count > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, count + other.count));
+        }
+        System.arraycopy(other.values, 0, values, count, other.count);
+        count += other.count;
+        sorted = false;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations, by the nearest-rank method.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        var rank = (int) Math.ceil(percentile / 100 * count);
+        return values[Math.min(count, Math.max(rank, 1)) - 1];
+    }
+
+    long max() {
+        return percentile(100);
+    }
+}
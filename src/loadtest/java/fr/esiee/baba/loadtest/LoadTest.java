@@ -0,0 +1,118 @@
+package fr.esiee.baba.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for the game endpoint, measuring how many concurrent players one server instance sustains.
+ * <p>
+ * Usage: {@code LoadTest [--url=ws://localhost:8080/game-ws] [--sessions=N] [--moves=N] [--rate=MOVES_PER_SECOND]
+ * [--script=RLLRUDDU] [--ramp-up=SECONDS] [--timeout=SECONDS]}.
+ * <p>
+ * Each session is played by a {@link SimulatedPlayer} on its own virtual thread, with the JDK {@link HttpClient}
+ * WebSocket support only. Sessions connect evenly over the ramp-up period, then replay their script at the given rate.
+ * The report gives the handshake and first-state times of the connections, the round-trip latencies of the moves
+ * (p50, p99, p99.9, max), and the timeouts and server errors. The exit status is 1 if any error occurred. The
+ * {@code /api/stats} endpoint of the server is polled during the run, to report its thread mode and the heap its
+ * sessions take (see {@link ServerStatsSampler}).
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        var uri = URI.create("ws://localhost:8080/game-ws");
+        var sessions = 100;
+        var moves = 200;
+        var rate = 5.0;
+        // Goes back and forth, so that the player stays in the first level for the whole run
+        var script = "RLLRUDDU";
+        var rampUp = 5.0;
+        var timeout = Duration.ofSeconds(10);
+        for (var arg : args) {
+            if (arg.startsWith("--url=")) {
+                uri = URI.create(arg.substring("--url=".length()));
+            } else if (arg.startsWith("--sessions=")) {
+                sessions = Integer.parseInt(arg.substring("--sessions=".length()));
+            } else if (arg.startsWith("--moves=")) {
+                moves = Integer.parseInt(arg.substring("--moves=".length()));
+            } else if (arg.startsWith("--rate=")) {
+                rate = Double.parseDouble(arg.substring("--rate=".length()));
+            } else if (arg.startsWith("--script=")) {
+                script = arg.substring("--script=".length()).toUpperCase(Locale.ROOT);
+            } else if (arg.startsWith("--ramp-up=")) {
+                rampUp = Double.parseDouble(arg.substring("--ramp-up=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = Duration.ofMillis((long) (Double.parseDouble(arg.substring("--timeout=".length())) * 1000));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (sessions <= 0 || moves < 0 || rate <= 0) {
+            throw new IllegalArgumentException("Sessions and rate must be positive and moves not negative");
+        }
+        if (!script.matches("[UDLR]+")) {
+            throw new IllegalArgumentException("The script must be made of U, D, L and R letters: " + script);
+        }
+
+        System.out.printf("%d sessions against %s, %d moves each at %.1f moves/s, ramp-up %.1f s%n",
+                sessions, uri, moves, rate, rampUp);
+        var handshakes = new Latencies();
+        var firstStates = new Latencies();
+        var roundTrips = new Latencies();
+        var connectionFailures = 0;
+        var timeouts = 0;
+        var serverErrors = 0;
+        String serverReport;
+        var start = System.nanoTime();
+        try (var client = HttpClient.newHttpClient();
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var sampler = new ServerStatsSampler(client, uri, Duration.ofSeconds(1));
+            var sampling = Thread.ofVirtual().name("stats-sampler").start(sampler);
+            var results = new ArrayList<Future<SimulatedPlayer.Result>>(sessions);
+            for (var i = 0; i < sessions; i++) {
+                var startAt = start + (long) (rampUp * 1e9 * i / sessions);
+                results.add(executor.submit(new SimulatedPlayer(client, uri, script, moves, rate, timeout, startAt)));
+            }
+            for (var future : results) {
+                var result = future.get();
+                if (result.connectionFailed()) {
+                    connectionFailures++;
+                    continue;
+                }
+                handshakes.add(result.handshakeNanos());
+                if (result.firstStateNanos() >= 0) {
+                    firstStates.add(result.firstStateNanos());
+                }
+                roundTrips.addAll(result.roundTrips());
+                timeouts += result.timeouts();
+                serverErrors += result.serverErrors();
+            }
+            sampler.stop();
+            sampling.interrupt();
+            sampling.join();
+            serverReport = sampler.report();
+        }
+        var elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Finished in %.1f s: %d moves answered (%.0f moves/s)%n",
+                elapsed, roundTrips.count(), roundTrips.count() / elapsed);
+        print("handshake", handshakes);
+        print("first state", firstStates);
+        print("move round trip", roundTrips);
+        System.out.printf("errors: %d connection failures, %d timeouts, %d server errors%n",
+                connectionFailures, timeouts, serverErrors);
+        System.out.println(serverReport);
+        System.exit(connectionFailures + timeouts + serverErrors == 0 ? 0 : 1);
+    }
+
+    private static void print(String name, Latencies latencies) {
+        System.out.printf("%-16s n=%-8d p50=%8.2f ms  p99=%8.2f ms  p99.9=%8.2f ms  max=%8.2f ms%n", name,
+                latencies.count(), latencies.percentile(50) / 1e6, latencies.percentile(99) / 1e6,
+                latencies.percentile(99.9) / 1e6, latencies.max() / 1e6);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.esiee.baba.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Polls the {@code /api/stats} endpoint of the server during a run, and keeps the sample taken with the most sessions
+ * open, to report the memory the sessions take and the thread mode of the server.
+ * <p>
+ * The heap in use includes garbage not collected yet, so the sessions per GB it gives is a rough figure; runs to
+ * compare should use the same heap settings. The samples are only read by the thread that joined the sampling thread.
+ */
+final class ServerStatsSampler implements Runnable {
+
+    private static final Pattern FIELD = Pattern.compile("\"(\\w+)\":(true|false|\\d+)");
+
+    private final HttpClient client;
+    private final URI uri;
+    private final Duration interval;
+    private volatile boolean stopped;
+    private boolean reachable;
+    private long peakSessions;
+    private long heapAtPeak;
+    private long peakPlatformThreads;
+    private boolean virtualThreads;
+
+    /**
+     * Constructs the sampler.
+     *
+     * @param client the client to poll with.
+     * @param gameUri the address of the game endpoint; the statistics are read from {@code /api/stats} on its host.
+     * @param interval the time between two samples.
+     */
+    ServerStatsSampler(HttpClient client, URI gameUri, Duration interval) {
+        this.client = client;
+        var scheme = "wss".equals(gameUri.getScheme()) ? "https" : "http";
+        this.uri = URI.create(scheme + "://" + gameUri.getRawAuthority() + "/api/stats");
+        this.interval = interval;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped) {
+            sample();
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Gets the summary of the samples, once the sampling thread has ended.
+     *
+     * @return one line describing the server at its peak, or a note that the statistics could not be read.
+     */
+    String report() {
+        if (!reachable) {
+            return "server: no statistics at " + uri;
+        }
+        var megabytes = heapAtPeak / (1024.0 * 1024.0);
+        var perGigabyte = heapAtPeak == 0 ? 0 : peakSessions * 1024 / megabytes;
+        return String.format("server: %s threads, peak %d sessions with %.0f MB of heap in use"
+                + " (about %.0f sessions per GB), up to %d platform threads",
+                virtualThreads ? "virtual" : "platform", peakSessions, megabytes, perGigabyte, peakPlatformThreads);
+    }
+
+    private void sample() {
+        String body;
+        try {
+            var response = client.send(HttpRequest.newBuilder(uri).timeout(interval.multipliedBy(2)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return;
+            }
+            body = response.body();
+        } catch (Exception e) {
+            return;
+        }
+        long sessions = 0, heap = 0, threads = 0;
+        var virtual = false;
+        var matcher = FIELD.matcher(body);
+        while (matcher.find()) {
+            switch (matcher.group(1)) {
+                case "sessions" -> sessions = Long.parseLong(matcher.group(2));
+                case "heapUsedBytes" -> heap = Long.parseLong(matcher.group(2));
+                case "platformThreads" -> threads = Long.parseLong(matcher.group(2));
+                case "virtualThreads" -> virtual = Boolean.parseBoolean(matcher.group(2));
+                default -> { }
+            }
+        }
+        reachable = true;
+        virtualThreads = virtual;
+        peakPlatformThreads = Math.max(peakPlatformThreads, threads);
+        if (sessions >= peakSessions) {
+            peakSessions = sessions;
+            heapAtPeak = heap;
+        }
+    }
+}
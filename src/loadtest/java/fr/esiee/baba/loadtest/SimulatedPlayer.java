@@ -0,0 +1,191 @@
+package fr.esiee.baba.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One player of the load test: opens a WebSocket session, waits for the initial game state, then sends the moves of
+ * its script at a fixed rate, waiting for the game state answering each move before sending the next one.
+ * <p>
+ * The latency of a move is measured from the time it was scheduled to be sent, not from the time it was actually
+ * sent: when the server is slow the player falls behind its schedule, and the delay is counted in the following
+ * moves instead of being hidden.
+ */
+final class SimulatedPlayer implements Callable<SimulatedPlayer.Result> {
+
+    /**
+     * What a player measured.
+     *
+     * @param handshakeNanos the duration of the WebSocket handshake, or -1 if the connection failed.
+     * @param firstStateNanos the duration from the start of the connection to the initial game state, or -1.
+     * @param roundTrips the latencies of the answered moves.
+     * @param timeouts the number of moves left unanswered.
+     * @param serverErrors the number of error messages and abnormal closes from the server.
+     * @param connectionFailed true if the session could not be opened.
+     */
+    record Result(long handshakeNanos, long firstStateNanos, Latencies roundTrips, int timeouts, int serverErrors,
+            boolean connectionFailed) {
+    }
+
+    private static final String CLOSED = "\u0000closed";
+
+    private final HttpClient client;
+    private final URI uri;
+    private final String script;
+    private final int moves;
+    private final long intervalNanos;
+    private final Duration timeout;
+    private final long startAt;
+
+    /**
+     * Constructs a player.
+     *
+     * @param client the client opening the session.
+     * @param uri the address of the game endpoint.
+     * @param script the moves to play, as U, D, L and R letters, repeated as needed.
+     * @param moves the number of moves to send.
+     * @param rate the number of moves sent per second.
+     * @param timeout the time after which a connection or an answer is given up.
+     * @param startAt the {@link System#nanoTime()} at which the player connects.
+     */
+    SimulatedPlayer(HttpClient client, URI uri, String script, int moves, double rate, Duration timeout,
+            long startAt) {
+        this.client = client;
+        this.uri = uri;
+        this.script = script;
+        this.moves = moves;
+        this.intervalNanos = (long) (1e9 / rate);
+        this.timeout = timeout;
+        this.startAt = startAt;
+    }
+
+    @Override
+    public Result call() throws InterruptedException {
+        sleepUntil(startAt);
+        var listener = new Listener();
+        var connectStart = System.nanoTime();
+        WebSocket webSocket;
+        try {
+            webSocket = client.newWebSocketBuilder()
+                    .connectTimeout(timeout)
+                    .buildAsync(uri, listener)
+                    .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            return new Result(-1, -1, new Latencies(), 0, 0, true);
+        }
+        var handshake = System.nanoTime() - connectStart;
+
+        var roundTrips = new Latencies();
+        var timeouts = 0;
+        var serverErrors = 0;
+        var initial = listener.next();
+        if (initial == null || initial == CLOSED || isError(initial)) {
+            webSocket.abort();
+            return new Result(handshake, -1, roundTrips, initial == null ? 1 : 0, initial == null ? 0 : 1, false);
+        }
+        var firstState = System.nanoTime() - connectStart;
+
+        var schedule = System.nanoTime();
+        for (var i = 0; i < moves; i++) {
+            var scheduled = schedule + i * intervalNanos;
+            sleepUntil(scheduled);
+            webSocket.sendText(command(script.charAt(i % script.length())), true).join();
+            var answer = listener.next();
+            if (answer == null) {
+                timeouts++;
+                break; // the session is out of step with its answers, it cannot be measured anymore
+            }
+            if (answer == CLOSED) {
+                serverErrors++;
+                break;
+            }
+            roundTrips.add(System.nanoTime() - scheduled);
+            if (isError(answer)) {
+                serverErrors++;
+            }
+        }
+        if (listener.abnormalClose) {
+            serverErrors++;
+        }
+        webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        return new Result(handshake, firstState, roundTrips, timeouts, serverErrors, false);
+    }
+
+    private static String command(char move) {
+        return switch (move) {
+            case 'U' -> "UP";
+            case 'D' -> "DOWN";
+            case 'L' -> "LEFT";
+            case 'R' -> "RIGHT";
+            default -> throw new IllegalArgumentException("Unknown move in script: " + move);
+        };
+    }
+
+    private static boolean isError(String message) {
+        return message.startsWith("{\"error\"");
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        for (var left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Gathers the fragments of each text message and hands complete messages to the player.
+     */
+    private final class Listener implements WebSocket.Listener {
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        private final StringBuilder partial = new StringBuilder();
+        private volatile boolean abnormalClose;
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                messages.add(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            abnormalClose = statusCode != WebSocket.NORMAL_CLOSURE;
+            messages.add(CLOSED);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            abnormalClose = true;
+            messages.add(CLOSED);
+        }
+
+        /**
+         * Waits for the next complete message.
+         *
+         * @return the message, {@link #CLOSED} if the session ended, or null if nothing came before the timeout.
+         */
+        String next() throws InterruptedException {
+            return messages.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package fr.esiee.baba;
+
+import fr.esiee.baba.controller.BinaryLevelFormat;
+import fr.esiee.baba.controller.LevelParser;
+import fr.esiee.baba.model.Level;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Build-time entry point compiling the text level files of a directory to the {@link BinaryLevelFormat}.
+ * <p>
+ * Usage: {@code LevelCompilerApplication source-directory output-directory}. Each {@code name.txt} of the source
+ * directory is written as {@code name.bin} in the output directory.
+ */
+public class LevelCompilerApplication {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LevelCompilerApplication source-directory output-directory");
+            System.exit(2);
+        }
+        var source = Path.of(args[0]);
+        var output = Path.of(args[1]);
+        Files.createDirectories(output);
+        try (var files = Files.newDirectoryStream(source, "*.txt")) {
+            for (var file : files) {
+                var name = file.getFileName().toString();
+                Level level;
+                try (var reader = Files.newBufferedReader(file)) {
+                    level = LevelParser.parse(reader, name);
+                }
+                var compiled = output.resolve(name.substring(0, name.length() - ".txt".length())
+                        + BinaryLevelFormat.EXTENSION);
+                Files.write(compiled, BinaryLevelFormat.write(level));
+            }
+        }
+    }
+}
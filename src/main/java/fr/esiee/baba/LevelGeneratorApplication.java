@@ -0,0 +1,65 @@
+package fr.esiee.baba;
+
+import fr.esiee.baba.tools.LevelGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line entry point writing a synthetic level file for scale testing.
+ * <p>
+ * Usage: {@code LevelGeneratorApplication [--size=HxW] [--seed=N] [--word-density=D] [--sentences=N] [--you=N]
+ * [--entity-density=D] [--pushable=D] output-file}. Settings left out take the values of
+ * {@link LevelGenerator.Settings#of(int, int, long)}.
+ */
+public class LevelGeneratorApplication {
+
+    public static void main(String[] args) throws IOException {
+        var height = 256;
+        var width = 256;
+        var seed = 1L;
+        Double wordDensity = null;
+        Integer sentences = null;
+        Integer youCount = null;
+        Double entityDensity = null;
+        Double pushableRatio = null;
+        Path output = null;
+        for (var arg : args) {
+            if (arg.startsWith("--size=")) {
+                var size = arg.substring("--size=".length()).split("x");
+                height = Integer.parseInt(size[0]);
+                width = Integer.parseInt(size[1]);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--word-density=")) {
+                wordDensity = Double.parseDouble(arg.substring("--word-density=".length()));
+            } else if (arg.startsWith("--sentences=")) {
+                sentences = Integer.parseInt(arg.substring("--sentences=".length()));
+            } else if (arg.startsWith("--you=")) {
+                youCount = Integer.parseInt(arg.substring("--you=".length()));
+            } else if (arg.startsWith("--entity-density=")) {
+                entityDensity = Double.parseDouble(arg.substring("--entity-density=".length()));
+            } else if (arg.startsWith("--pushable=")) {
+                pushableRatio = Double.parseDouble(arg.substring("--pushable=".length()));
+            } else {
+                output = Path.of(arg);
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: LevelGeneratorApplication [--size=HxW] [--seed=N] [--word-density=D]"
+                    + " [--sentences=N] [--you=N] [--entity-density=D] [--pushable=D] output-file");
+            System.exit(2);
+        }
+
+        var defaults = LevelGenerator.Settings.of(height, width, seed);
+        var settings = new LevelGenerator.Settings(height, width, seed,
+                wordDensity != null ? wordDensity : defaults.wordDensity(),
+                sentences != null ? sentences : defaults.sentences(),
+                youCount != null ? youCount : defaults.youCount(),
+                entityDensity != null ? entityDensity : defaults.entityDensity(),
+                pushableRatio != null ? pushableRatio : defaults.pushableRatio());
+        Files.write(output, LevelGenerator.generate(settings));
+        System.out.printf("Wrote a %dx%d level to %s (%s)%n", height, width, output, settings);
+    }
+}
@@ -0,0 +1,79 @@
+package fr.esiee.baba;
+
+import fr.esiee.baba.controller.LevelParser;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.solver.Solver;
+import fr.esiee.baba.web.LevelCatalog;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command-line entry point checking that levels can be solved, without starting the web server.
+ * <p>
+ * Usage: {@code SolverApplication [--mode=bfs|astar] [--threads=N] [--max-states=N] [level files...]}.
+ * Without level files, every bundled level is solved. The exit status is 1 if a level could not be solved.
+ */
+public class SolverApplication {
+    private static final int DEFAULT_MAX_STATES = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        var mode = Solver.Mode.BFS;
+        var threads = Runtime.getRuntime().availableProcessors();
+        var maxStates = DEFAULT_MAX_STATES;
+        var files = new ArrayList<Path>();
+        for (var arg : args) {
+            if (arg.startsWith("--mode=")) {
+                mode = Solver.Mode.valueOf(arg.substring("--mode=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--max-states=")) {
+                maxStates = Integer.parseInt(arg.substring("--max-states=".length()));
+            } else {
+                files.add(Path.of(arg));
+            }
+        }
+
+        List<Level> levels;
+        if (files.isEmpty()) {
+            levels = new LevelCatalog(new PathMatchingResourcePatternResolver()).newLevels();
+        } else {
+            levels = new ArrayList<>();
+            for (var file : files) {
+                try (var reader = Files.newBufferedReader(file)) {
+                    levels.add(LevelParser.parse(reader, file.getFileName().toString()));
+                }
+            }
+        }
+
+        var allSolved = true;
+        var pool = new ForkJoinPool(threads);
+        try {
+            var solver = new Solver(pool, mode, maxStates);
+            System.out.printf("Solving %d levels (%s, %d threads, at most %d states)%n",
+                    levels.size(), mode, threads, maxStates);
+            for (var level : levels) {
+                var solution = solver.solve(level);
+                if (solution.solved()) {
+                    System.out.printf("%-16s solved in %d moves: %s (%d states, %.0f states/s)%n",
+                            level.getLevelFilePath(), solution.moves().size(), solution.movesAsString(),
+                            solution.statesVisited(), solution.statesPerSecond());
+                } else {
+                    allSolved = false;
+                    System.out.printf("%-16s %s (%d states, %.0f states/s)%n", level.getLevelFilePath(),
+                            solution.exhausted() ? "UNSOLVABLE" : "state limit reached",
+                            solution.statesVisited(), solution.statesPerSecond());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.exit(allSolved ? 0 : 1);
+    }
+}
@@ -0,0 +1,105 @@
+package fr.esiee.baba.controller;
+
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary form of the level files, compiled from the text form at build time so that levels are loaded without
+ * tokenizing text.
+ * <p>
+ * A compiled level is a header followed by the compact encoding of its board ({@link Board#encode()}): the height of
+ * every cell stack, one byte per cell below 128 elements, then the ordinals of the stacked elements, one byte per element,
+ * cell after cell.
+ * <pre>
+ * magic "BABA" (4 bytes) | version (1 byte) | element count (1 byte) | element checksum (4 bytes) | height (4 bytes)
+ *     | width (4 bytes) | board
+ * </pre>
+ * The element count and checksum (a CRC-32 of the names of the {@link Element} constants, in order) record the elements
+ * the ordinals stood for when the level was compiled: ordinals written by another version of the game, even one only
+ * reordering or renaming elements, are refused, and the level must then be read from its text form.
+ */
+public final class BinaryLevelFormat {
+    /**
+     * Extension of the compiled level files.
+     */
+    public static final String EXTENSION = ".bin";
+
+    private static final int MAGIC = 'B' << 24 | 'A' << 16 | 'B' << 8 | 'A';
+    private static final byte VERSION = 2;
+    private static final int HEADER_BYTES = 18;
+    private static final int ELEMENT_CHECKSUM = elementChecksum();
+
+    private BinaryLevelFormat() {
+    }
+
+    private static int elementChecksum() {
+        var crc = new CRC32();
+        for (var element : Element.values()) {
+            crc.update(element.name().getBytes(StandardCharsets.US_ASCII));
+            crc.update(0);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Compiles a level to the binary form.
+     *
+     * @param level the level to compile.
+     * @return the bytes of the compiled level.
+     */
+    public static byte[] write(Level level) {
+        var board = level.getBoard();
+        var encoded = board.encode();
+        var buffer = ByteBuffer.allocate(HEADER_BYTES + encoded.length);
+        buffer.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) Element.values().length)
+                .putInt(ELEMENT_CHECKSUM)
+                .putInt(board.getHeight())
+                .putInt(board.getWidth())
+                .put(encoded);
+        return buffer.array();
+    }
+
+    /**
+     * Reads a compiled level.
+     *
+     * @param buffer the bytes of the compiled level, from its current position to its limit; decoded in place, without
+     *               copying them.
+     * @param name identifier for the level.
+     * @return the level.
+     * @throws IllegalArgumentException if the bytes are not a level compiled by this version of the game.
+     */
+    public static Level read(ByteBuffer buffer, String name) {
+        Objects.requireNonNull(buffer);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a compiled level: " + name);
+            }
+            var version = buffer.get();
+            var elementCount = buffer.get();
+            if (version != VERSION || elementCount != Element.values().length) {
+                throw new IllegalArgumentException("Level " + name + " was compiled for another version (format "
+                        + version + ", " + elementCount + " elements)");
+            }
+            if (buffer.getInt() != ELEMENT_CHECKSUM) {
+                throw new IllegalArgumentException("Level " + name + " was compiled for other elements");
+            }
+            var height = buffer.getInt();
+            var width = buffer.getInt();
+            if (height <= 0 || width <= 0 || (long) height * width > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid dimensions for level " + name + ": " + height + "x" + width);
+            }
+            return new Level(Board.decode(height, width, buffer), name);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated compiled level: " + name, e);
+        }
+    }
+}
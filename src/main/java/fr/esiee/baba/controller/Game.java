@@ -44,35 +44,10 @@ public class Game {
      * @param lines the lines of the level file.
      * @param name  identifier for the level.
      * @return the constructed Level.
+     * @see LevelParser
      */
     public static Level parseLevel(List<String> lines, String name) {
-        var grid = new ArrayList<List<Cellule>>();
-        Game parser = new Game(new ArrayList<>(), null); // dummy for map access? Or make map static?
-        // Actually, the map logic is inside Game instance. Let's make helper static or
-        // expose it.
-        // Better: static helper for parsing.
-
-        for (String line : lines) {
-            if (!line.isEmpty()) {
-                grid.add(parseLineToRow(line));
-            }
-        }
-        return new Level(grid, name);
-    }
-
-    private static List<Cellule> parseLineToRow(String line) {
-        var row = new ArrayList<Cellule>();
-        var tokens = line.split(" ");
-        for (var token : tokens) {
-            var cell = new Cellule();
-            cell.addElement(Element.EMPTY);
-            var element = stringToElement(token);
-            if (element != null && element != Element.EMPTY) {
-                cell.addElement(element);
-            }
-            row.add(cell);
-        }
-        return row;
+        return LevelParser.parse(lines, name);
     }
 
     public static Element stringToElement(String token) {
@@ -82,9 +57,32 @@ public class Game {
         return STATIC_ELEMENT_MAP.getOrDefault(token, Element.EMPTY);
     }
 
+    /**
+     * Gets the token standing for an element in level files, the reverse of {@link #stringToElement(String)}.
+     *
+     * @param element the element to write.
+     * @return the token of the element.
+     */
+    public static String elementToString(Element element) {
+        var token = STATIC_TOKEN_MAP.get(Objects.requireNonNull(element));
+        if (token == null) {
+            throw new IllegalArgumentException("No level file token for " + element);
+        }
+        return token;
+    }
+
     // Static map for parsing
     private static final Map<String, Element> STATIC_ELEMENT_MAP = createElementMapStatic();
 
+    // Reverse map for writing level files
+    private static final Map<Element, String> STATIC_TOKEN_MAP = createTokenMapStatic();
+
+    private static Map<Element, String> createTokenMapStatic() {
+        var map = new EnumMap<Element, String>(Element.class);
+        STATIC_ELEMENT_MAP.forEach((token, element) -> map.put(element, token));
+        return map;
+    }
+
     private static Map<String, Element> createElementMapStatic() {
         var map = new HashMap<String, Element>();
         map.put("b", Element.BABA);
@@ -142,10 +140,6 @@ public class Game {
             logger.info("Loading level {} of {}: {}",
                 currentLevelIndex + 1, levels.size(), level.getLevelFilePath());
 
-            Rules rules = new Rules(level);
-            rules.initRules(level);
-            Transmutation transmutation = new Transmutation(level, rules);
-
             logger.debug("Rendering initial state for level: {}", level.getLevelFilePath());
             renderer.render(level);
             logger.info("Level loaded and rendered successfully");
@@ -160,8 +154,7 @@ public class Game {
             return;
 
         Level level = levels.get(currentLevelIndex);
-        Rules rules = new Rules(level);
-        Transmutation transmutation = new Transmutation(level, rules);
+        Rules rules = level.getRules();
 
         Direction direction = null;
         switch (action) {
@@ -175,7 +168,7 @@ public class Game {
                 return;
             }
             case UNDO -> {
-                // UNDO is now handled in GameWebSocketHandler (state history system)
+                // UNDO is now handled in GameWebSocketHandler (undo journal of the level)
                 logger.debug("UNDO action received (handled by WebSocketHandler)");
                 return;
             }
@@ -190,8 +183,6 @@ public class Game {
         if (direction != null) {
             boolean isJump = rules.hasProperty(level.getYouElements(), Property.JUMP);
             level.update(direction, isJump);
-            rules.initRules(level);
-            transmutation.setTransmutation(level, rules);
 
             if (level.isCompleted()) {
                 currentLevelIndex++;
@@ -207,6 +198,38 @@ public class Game {
         }
     }
 
+    /**
+     * Plays moves one after the other, each as {@link #handleAction(GameAction)} does, until they are all played, a
+     * level is completed (the game then goes on with the next one) or nothing is left to control in the level.
+     *
+     * @param moves the moves to play, among MOVE_UP, MOVE_DOWN, MOVE_LEFT and MOVE_RIGHT.
+     * @return the number of moves played.
+     * @throws IllegalArgumentException if an action is not a move.
+     */
+    public int handleMoves(List<GameAction> moves) {
+        for (var move : moves) {
+            if (move != GameAction.MOVE_UP && move != GameAction.MOVE_DOWN
+                    && move != GameAction.MOVE_LEFT && move != GameAction.MOVE_RIGHT) {
+                throw new IllegalArgumentException("Not a move: " + move);
+            }
+        }
+        var played = 0;
+        for (var move : moves) {
+            Level level = getCurrentLevel();
+            if (isFinished || level == null) {
+                break;
+            }
+            handleAction(move);
+            played++;
+            if (level.isCompleted() || level.getYouElements().isEmpty()) {
+                logger.debug("Moves stopped after {} of {}: {}", played, moves.size(),
+                        level.isCompleted() ? "level completed" : "nothing left to control");
+                break;
+            }
+        }
+        return played;
+    }
+
     public boolean isFinished() {
         return isFinished;
     }
@@ -0,0 +1,190 @@
+package fr.esiee.baba.controller;
+
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming parser of the text level format, reading characters one at a time and filling the board directly,
+ * without splitting lines into token strings.
+ * <p>
+ * The format is read exactly as {@code line.split(" ")} reads each non-empty line: tokens are separated by single
+ * spaces, so two spaces in a row give an empty cell, a leading space gives an empty first cell, and trailing empty
+ * tokens are dropped; a line made of spaces only gives a row without cells. A token is an element only if it is a
+ * single character of the {@link Game#stringToElement(String)} table; anything else is an empty cell. Rows shorter than
+ * the longest one are padded with cells holding nothing.
+ */
+public final class LevelParser {
+    // Element ordinal of every ASCII character, or -1 for the characters that are not element tokens
+    private static final byte[] TOKENS = new byte[128];
+    private static final byte EMPTY = (byte) Element.EMPTY.ordinal();
+    private static final byte NOT_AN_ELEMENT = -1;
+
+    static {
+        for (var c = 0; c < TOKENS.length; c++) {
+            var element = Game.stringToElement(String.valueOf((char) c));
+            TOKENS[c] = element == Element.EMPTY ? NOT_AN_ELEMENT : (byte) element.ordinal();
+        }
+    }
+
+    private final String name;
+    // Element of each cell read so far, row after row; EMPTY for a cell holding only the empty element
+    private byte[] cells = new byte[1024];
+    private int cellCount;
+    private int elementCount;
+    private int[] rowLengths = new int[64];
+    private int rowCount;
+    private int width;
+    // State of the current line
+    private int rowStart;
+    private int lineLength;
+    private int lastToken;
+    // State of the current token
+    private int tokenLength;
+    private int tokenChar;
+
+    private LevelParser(String name) {
+        this.name = Objects.requireNonNull(name);
+    }
+
+    /**
+     * Parses a level from a stream of characters, where lines end with {@code \n}, {@code \r} or {@code \r\n}.
+     *
+     * @param reader the text of the level; read to its end but not closed.
+     * @param name identifier for the level.
+     * @return the constructed Level.
+     * @throws IOException if the text cannot be read.
+     */
+    public static Level parse(Reader reader, String name) throws IOException {
+        var parser = new LevelParser(name);
+        var buffer = new char[8192];
+        for (var read = reader.read(buffer); read >= 0; read = reader.read(buffer)) {
+            for (var i = 0; i < read; i++) {
+                parser.accept(buffer[i]);
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Parses a level from the bytes of its text, in ASCII or UTF-8, where lines end with {@code \n}, {@code \r} or
+     * {@code \r\n}. Bytes of multibyte characters are never element tokens, as characters outside ASCII never are.
+     *
+     * @param buffer the text of the level, from its current position to its limit.
+     * @param name identifier for the level.
+     * @return the constructed Level.
+     */
+    public static Level parse(ByteBuffer buffer, String name) {
+        var parser = new LevelParser(name);
+        while (buffer.hasRemaining()) {
+            parser.accept(buffer.get() & 0xFF);
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Parses a level from its lines, each of them taken as a whole line.
+     *
+     * @param lines the lines of the level file.
+     * @param name identifier for the level.
+     * @return the constructed Level.
+     */
+    public static Level parse(List<String> lines, String name) {
+        var parser = new LevelParser(name);
+        for (var line : lines) {
+            for (var i = 0; i < line.length(); i++) {
+                parser.character(line.charAt(i));
+            }
+            parser.endLine();
+        }
+        return parser.finish();
+    }
+
+    private void accept(int c) {
+        if (c == '\n' || c == '\r') {
+            // A \r\n pair ends a line and then an empty one, which is skipped like every empty line
+            endLine();
+        } else {
+            character(c);
+        }
+    }
+
+    private void character(int c) {
+        lineLength++;
+        if (c == ' ') {
+            endToken();
+        } else {
+            tokenLength++;
+            tokenChar = c;
+        }
+    }
+
+    private void endToken() {
+        var element = NOT_AN_ELEMENT;
+        if (tokenLength == 1 && tokenChar < TOKENS.length) {
+            element = TOKENS[tokenChar];
+        }
+        if (cellCount == cells.length) {
+            cells = Arrays.copyOf(cells, cellCount * 2);
+        }
+        if (element == NOT_AN_ELEMENT) {
+            cells[cellCount++] = EMPTY;
+        } else {
+            cells[cellCount++] = element;
+            elementCount++;
+        }
+        if (tokenLength > 0) {
+            lastToken = cellCount;
+        }
+        tokenLength = 0;
+    }
+
+    private void endLine() {
+        if (lineLength == 0) {
+            return;
+        }
+        endToken();
+        // Trailing empty tokens are not cells, as with String.split
+        cellCount = lastToken;
+        if (rowCount == rowLengths.length) {
+            rowLengths = Arrays.copyOf(rowLengths, rowCount * 2);
+        }
+        var length = cellCount - rowStart;
+        rowLengths[rowCount++] = length;
+        width = Math.max(width, length);
+        rowStart = cellCount;
+        lastToken = cellCount;
+        lineLength = 0;
+    }
+
+    /**
+     * Builds the level from the cells read, through the compact board encoding: the height of every stack, then the
+     * ordinals of the stacked elements.
+     */
+    private Level finish() {
+        endLine();
+        var boardCells = rowCount * width;
+        // Every cell read holds the empty element, and some of them an element on top of it
+        var encoded = new byte[boardCells + cellCount + elementCount];
+        var position = boardCells;
+        var cell = 0;
+        for (var x = 0; x < rowCount; x++) {
+            for (var y = 0; y < rowLengths[x]; y++) {
+                var element = cells[cell++];
+                encoded[position++] = EMPTY;
+                if (element != EMPTY) {
+                    encoded[position++] = element;
+                }
+                encoded[x * width + y] = (byte) (element == EMPTY ? 1 : 2);
+            }
+        }
+        return new Level(Board.decode(rowCount, width, encoded), name);
+    }
+}
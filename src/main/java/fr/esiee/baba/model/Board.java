@@ -0,0 +1,1082 @@
+package fr.esiee.baba.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Compact storage for the cells of a level. The board is a single flat, row-major array of small element stacks:
+ * every cell owns {@code stride} consecutive bytes holding element ordinals, and its stack height is kept in a
+ * separate array. As everywhere else in the engine, x is the row and y the column, so cell (x, y) lives at
+ * index {@code x * width + y}. The stride doubles when a stack outgrows it, up to {@value #MAX_STRIDE}; a cell stacking
+ * more elements than that (all the YOU entities pushed against an edge, say) gets an array of its own, so there is no
+ * limit to the height of a stack while the other cells stay small.
+ * <p>
+ * The stacks hold exactly what a {@link Cellule} would hold (including the EMPTY sentinel), so the rules behave
+ * the same on both representations.
+ * <p>
+ * Alongside the stacks, the board keeps one occupancy bitset per element, telling which cells contain at least one
+ * occurrence of it. Questions such as "which cells hold something HOT and something MELT" become bitwise OR/AND
+ * over those sets instead of per-cell scans. The same cells are also listed per element, so the few cells holding a
+ * rare element (typically the ones controlled by the player) can be found without going through the whole board. Each
+ * list is a small hash set of cell indexes, sized to the cells it holds, so a cell enters or leaves it in constant time.
+ * EMPTY, found in nearly every cell and never looked up that way, is not listed.
+ * <p>
+ * Finally, the board maintains a 64-bit Zobrist hash of its content, updated by every mutation: the sum, modulo 2^64, of
+ * one key per element in a cell. The keys are derived on the fly from (cell, element) by a splitmix64 mix, so no table
+ * is needed. Equal contents give equal hashes whatever the order of the elements within a cell. Unlike the usual XOR,
+ * a sum does not cancel out when an element is stacked twice in a cell, so the keys need no occurrence number: adding or
+ * removing an element adds or subtracts its key, in constant time whatever the height of the stack and without keeping
+ * a count per element and cell.
+ */
+public class Board {
+    private static final Element[] ELEMENTS = Element.values();
+    private static final boolean[] IS_WORD = new boolean[ELEMENTS.length];
+    private static final int INITIAL_STRIDE = 4;
+    private static final int MAX_STRIDE = 64;
+    private static final int UNLISTED = Element.EMPTY.ordinal();
+
+    static {
+        if (ELEMENTS.length > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Element ordinals no longer fit in a byte");
+        }
+        for (var element : ELEMENTS) {
+            IS_WORD[element.ordinal()] = element.getWord() != null;
+        }
+    }
+
+    private final int height;
+    private final int width;
+    private int stride;
+    private byte[] stacks;
+    // Stacks that outgrew the largest stride, by cell index; null until a cell needs one
+    private byte[][] tallStacks;
+    private final int[] sizes;
+    private final BitSet[] occupancy;
+    private final CellSet[] positions;
+    private final BitSet textChanges;
+    private BitSet dirtyCells;
+    private BitSet viewChanges;
+    private UndoJournal journal;
+    private long stateHash;
+
+    /**
+     * Constructs an empty board where every cell holds no element at all.
+     *
+     * @param height the number of rows.
+     * @param width the number of columns.
+     */
+    public Board(int height, int width) {
+        if (height < 0 || width < 0) {
+            throw new IllegalArgumentException("Board dimensions must not be negative: " + height + "x" + width);
+        }
+        this.height = height;
+        this.width = width;
+        this.stride = INITIAL_STRIDE;
+        this.stacks = new byte[height * width * stride];
+        this.sizes = new int[height * width];
+        this.occupancy = new BitSet[ELEMENTS.length];
+        for (var i = 0; i < occupancy.length; i++) {
+            occupancy[i] = new BitSet(height * width);
+        }
+        this.positions = new CellSet[ELEMENTS.length];
+        for (var i = 0; i < positions.length; i++) {
+            positions[i] = new CellSet();
+        }
+        this.textChanges = new BitSet(height * width);
+        this.dirtyCells = new BitSet();
+        this.viewChanges = new BitSet();
+    }
+
+    /**
+     * Copy constructor, sharing nothing with the original board.
+     *
+     * @param other the board to copy.
+     */
+    private Board(Board other) {
+        this.height = other.height;
+        this.width = other.width;
+        this.stride = other.stride;
+        this.stacks = other.stacks.clone();
+        this.sizes = other.sizes.clone();
+        if (other.tallStacks != null) {
+            this.tallStacks = new byte[sizes.length][];
+            for (var i = 0; i < sizes.length; i++) {
+                if (other.tallStacks[i] != null) {
+                    tallStacks[i] = other.tallStacks[i].clone();
+                }
+            }
+        }
+        this.occupancy = new BitSet[ELEMENTS.length];
+        for (var i = 0; i < occupancy.length; i++) {
+            occupancy[i] = (BitSet) other.occupancy[i].clone();
+        }
+        this.positions = new CellSet[ELEMENTS.length];
+        for (var i = 0; i < positions.length; i++) {
+            positions[i] = new CellSet(other.positions[i]);
+        }
+        this.stateHash = other.stateHash;
+        this.textChanges = new BitSet(sizes.length);
+        this.dirtyCells = new BitSet();
+        this.viewChanges = new BitSet();
+    }
+
+    /**
+     * Builds a board from the legacy list-of-cells representation.
+     * Rows shorter than the widest one are padded with cells holding no element.
+     *
+     * @param cells the rows of cells to copy.
+     * @return a new board with the same content.
+     */
+    public static Board fromCells(List<List<Cellule>> cells) {
+        Objects.requireNonNull(cells);
+        var width = 0;
+        for (var row : cells) {
+            width = Math.max(width, row.size());
+        }
+        var board = new Board(cells.size(), width);
+        for (var x = 0; x < cells.size(); x++) {
+            var row = cells.get(x);
+            for (var y = 0; y < row.size(); y++) {
+                var index = board.index(x, y);
+                for (var element : row.get(y).getElements()) {
+                    board.add(index, element);
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gets the number of rows of the board.
+     *
+     * @return the height of the board.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of columns of the board.
+     *
+     * @return the width of the board.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the total number of cells of the board.
+     *
+     * @return height times width.
+     */
+    public int getCellCount() {
+        return sizes.length;
+    }
+
+    /**
+     * Computes the flat index of a cell.
+     *
+     * @param x the row of the cell.
+     * @param y the column of the cell.
+     * @return the index of the cell in the flat arrays.
+     */
+    public int index(int x, int y) {
+        return x * width + y;
+    }
+
+    /**
+     * Checks if the specified coordinates are within the bounds of the board.
+     *
+     * @param x the row to check.
+     * @param y the column to check.
+     * @return true if the coordinates designate a cell of the board, false otherwise.
+     */
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < height && y >= 0 && y < width;
+    }
+
+    /**
+     * Gets the number of elements stacked in a cell.
+     *
+     * @param index the index of the cell.
+     * @return the height of the cell's stack.
+     */
+    public int size(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * Gets an element of a cell's stack.
+     *
+     * @param index the index of the cell.
+     * @param position the position in the stack, 0 being the bottom.
+     * @return the element at that position.
+     */
+    public Element elementAt(int index, int position) {
+        return ELEMENTS[storage(index)[offset(index) + position]];
+    }
+
+    /**
+     * Gets the array holding the stack of a cell: the shared one, or the cell's own if its stack is too tall for it.
+     *
+     * @param index the index of the cell.
+     * @return the storage of the stack, starting at {@link #offset(int)}.
+     */
+    private byte[] storage(int index) {
+        return tallStacks == null || tallStacks[index] == null ? stacks : tallStacks[index];
+    }
+
+    /**
+     * Gets the position of the stack of a cell in its {@link #storage(int)}.
+     *
+     * @param index the index of the cell.
+     * @return the position of the bottom of the stack.
+     */
+    private int offset(int index) {
+        return tallStacks == null || tallStacks[index] == null ? index * stride : 0;
+    }
+
+    /**
+     * Gets the number of elements a cell can hold before its storage must grow.
+     *
+     * @param index the index of the cell.
+     * @return the capacity of the stack.
+     */
+    private int capacity(int index) {
+        return tallStacks == null || tallStacks[index] == null ? stride : tallStacks[index].length;
+    }
+
+    /**
+     * Checks if a cell contains a specific element.
+     *
+     * @param index the index of the cell.
+     * @param element the element to look for.
+     * @return true if the cell contains the element, otherwise false.
+     */
+    public boolean contains(int index, Element element) {
+        return occupancy[element.ordinal()].get(index);
+    }
+
+    /**
+     * Checks if an element is present anywhere on the board.
+     *
+     * @param element the element to look for.
+     * @return true if at least one cell contains the element, otherwise false.
+     */
+    public boolean isPresent(Element element) {
+        return !occupancy[element.ordinal()].isEmpty();
+    }
+
+    /**
+     * Computes the set of cells containing at least one of the given elements.
+     *
+     * @param elements the elements to look for.
+     * @return a new bitset of cell indexes, free to be modified by the caller.
+     */
+    public BitSet cellsContaining(Element... elements) {
+        var cells = new BitSet(sizes.length);
+        for (var element : elements) {
+            cells.or(occupancy[element.ordinal()]);
+        }
+        return cells;
+    }
+
+    /**
+     * Gets the Zobrist hash of the content of the board, kept up to date by every mutation.
+     * Boards of the same dimensions holding the same elements in each cell have the same hash.
+     *
+     * @return the 64-bit hash of the board content.
+     */
+    public long stateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Computes the Zobrist key of an element in a cell, added to the hash for each occurrence of the element there.
+     *
+     * @param index the index of the cell.
+     * @param ordinal the ordinal of the element.
+     * @return the 64-bit key.
+     */
+    private static long zobristKey(int index, int ordinal) {
+        var z = (long) index * ELEMENTS.length + ordinal;
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Lists the cells containing at least one of the given elements, in row-major order. The cost follows the number
+     * of such cells rather than the size of the board.
+     *
+     * @param elements the elements to look for.
+     * @return a new array of distinct cell indexes, in increasing order.
+     */
+    public int[] cellsOf(Element... elements) {
+        var total = 0;
+        for (var element : elements) {
+            total += element.ordinal() == UNLISTED
+                    ? occupancy[UNLISTED].cardinality() : positions[element.ordinal()].size();
+        }
+        var cells = new int[total];
+        var count = 0;
+        for (var element : elements) {
+            if (element.ordinal() == UNLISTED) {
+                for (var index = occupancy[UNLISTED].nextSetBit(0); index >= 0;
+                        index = occupancy[UNLISTED].nextSetBit(index + 1)) {
+                    cells[count++] = index;
+                }
+                continue;
+            }
+            count = positions[element.ordinal()].copyTo(cells, count);
+        }
+        Arrays.sort(cells);
+        var distinct = 0;
+        for (var i = 0; i < count; i++) {
+            if (distinct == 0 || cells[distinct - 1] != cells[i]) {
+                cells[distinct++] = cells[i];
+            }
+        }
+        return distinct == count ? cells : Arrays.copyOf(cells, distinct);
+    }
+
+    /**
+     * Gives direct access to the occupancy bitset of an element. The returned set is live and must not be modified.
+     *
+     * @param element the element.
+     * @return the cells containing the element.
+     */
+    BitSet occupancy(Element element) {
+        return occupancy[element.ordinal()];
+    }
+
+    /**
+     * Gives direct access to the cells where a word was added or removed since the last call to
+     * {@link #clearTextChanges()}. The returned set is live and must not be modified.
+     *
+     * @return the cells whose words changed.
+     */
+    BitSet getTextChanges() {
+        return textChanges;
+    }
+
+    /**
+     * Forgets the word changes recorded so far, once the rules have been derived again.
+     */
+    void clearTextChanges() {
+        textChanges.clear();
+    }
+
+    /**
+     * Hands over the cells an element entered or left since the previous call, and starts a new record.
+     *
+     * @return the cells changed since the previous call; owned by the caller.
+     */
+    BitSet takeDirtyCells() {
+        var taken = dirtyCells;
+        dirtyCells = new BitSet();
+        return taken;
+    }
+
+    /**
+     * Hands over the cells an element entered or left since the previous call, for the views showing the board to
+     * players. Unlike {@link #takeDirtyCells()}, this record is left alone by the engine, so it spans whole updates.
+     *
+     * @return the cells changed since the previous call; owned by the caller.
+     */
+    public BitSet takeViewChanges() {
+        var taken = viewChanges;
+        viewChanges = new BitSet();
+        return taken;
+    }
+
+    /**
+     * Attaches the journal recording the changes of this board, replacing any previous one.
+     *
+     * @param journal the journal, or null to stop recording.
+     */
+    void setJournal(UndoJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Lets the journal save the stack of a cell before it changes.
+     *
+     * @param index the index of the cell.
+     */
+    private void beforeChange(int index) {
+        if (journal != null) {
+            journal.recordCell(index, storage(index), offset(index), sizes[index]);
+        }
+    }
+
+    /**
+     * Replaces the stack of a cell by a saved one, without recording it in the journal.
+     *
+     * @param index the index of the cell.
+     * @param ordinals the storage holding the saved ordinals.
+     * @param offset the position of the first ordinal.
+     * @param size the number of ordinals.
+     */
+    void restoreStack(int index, byte[] ordinals, int offset, int size) {
+        var recorder = journal;
+        journal = null;
+        try {
+            clear(index);
+            for (var k = 0; k < size; k++) {
+                add(index, ELEMENTS[ordinals[offset + k]]);
+            }
+        } finally {
+            journal = recorder;
+        }
+    }
+
+    /**
+     * Records that an element entered or left a cell.
+     *
+     * @param index the index of the cell.
+     * @param ordinal the ordinal of the element.
+     */
+    private void noteChange(int index, int ordinal) {
+        dirtyCells.set(index);
+        viewChanges.set(index);
+        if (IS_WORD[ordinal]) {
+            textChanges.set(index);
+        }
+    }
+
+    /**
+     * Records that a cell now holds an element, in the occupancy bitset and, unless the element is not listed, in the
+     * position list of the element.
+     *
+     * @param index the index of the cell.
+     * @param ordinal the ordinal of the element.
+     */
+    private void occupy(int index, int ordinal) {
+        if (occupancy[ordinal].get(index)) {
+            return;
+        }
+        occupancy[ordinal].set(index);
+        if (ordinal != UNLISTED) {
+            positions[ordinal].add(index);
+        }
+    }
+
+    /**
+     * Records that a cell no longer holds an element, if its last occurrence is gone.
+     *
+     * @param index the index of the cell.
+     * @param ordinal the ordinal of the element.
+     */
+    private void vacateIfGone(int index, int ordinal) {
+        if (!occupancy[ordinal].get(index) || indexOf(index, ELEMENTS[ordinal]) >= 0) {
+            return;
+        }
+        occupancy[ordinal].clear(index);
+        if (ordinal != UNLISTED) {
+            positions[ordinal].remove(index);
+        }
+    }
+
+    private int indexOf(int index, Element element) {
+        var ordinal = (byte) element.ordinal();
+        var data = storage(index);
+        var base = offset(index);
+        for (var k = 0; k < sizes[index]; k++) {
+            if (data[base + k] == ordinal) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Pushes an element on top of a cell's stack.
+     *
+     * @param index the index of the cell.
+     * @param element the element to add; must not be null.
+     */
+    void add(int index, Element element) {
+        Objects.requireNonNull(element);
+        beforeChange(index);
+        if (sizes[index] == capacity(index)) {
+            grow(index);
+        }
+        storage(index)[offset(index) + sizes[index]] = (byte) element.ordinal();
+        sizes[index]++;
+        stateHash += zobristKey(index, element.ordinal());
+        occupy(index, element.ordinal());
+        noteChange(index, element.ordinal());
+    }
+
+    /**
+     * Removes the first occurrence of an element from a cell.
+     *
+     * @param index the index of the cell.
+     * @param element the element to remove; does nothing if the element is not found.
+     * @return true if an element was removed, false otherwise.
+     */
+    boolean remove(int index, Element element) {
+        var position = indexOf(index, Objects.requireNonNull(element));
+        if (position < 0) {
+            return false;
+        }
+        beforeChange(index);
+        stateHash -= zobristKey(index, element.ordinal());
+        var data = storage(index);
+        var base = offset(index);
+        System.arraycopy(data, base + position + 1, data, base + position, sizes[index] - position - 1);
+        sizes[index]--;
+        vacateIfGone(index, element.ordinal());
+        noteChange(index, element.ordinal());
+        return true;
+    }
+
+    /**
+     * Removes every element of a cell.
+     *
+     * @param index the index of the cell.
+     */
+    void clear(int index) {
+        beforeChange(index);
+        var size = sizes[index];
+        sizes[index] = 0;
+        var data = storage(index);
+        var base = offset(index);
+        for (var k = 0; k < size; k++) {
+            var ordinal = data[base + k];
+            stateHash -= zobristKey(index, ordinal);
+            vacateIfGone(index, ordinal);
+            noteChange(index, ordinal);
+        }
+    }
+
+    /**
+     * Moves every element of a cell accepted by a filter on top of another cell, keeping their relative order.
+     *
+     * @param from the index of the cell to take the elements from.
+     * @param to the index of the cell receiving the elements; must differ from {@code from}.
+     * @param filter selects the elements to move.
+     */
+    void moveElements(int from, int to, Predicate<Element> filter) {
+        if (from == to) {
+            throw new IllegalArgumentException("Cannot move elements of a cell onto itself: " + from);
+        }
+        beforeChange(from);
+        var data = storage(from);
+        var base = offset(from);
+        var kept = 0;
+        var size = sizes[from];
+        var moved = new byte[size];
+        var movedCount = 0;
+        for (var k = 0; k < size; k++) {
+            var ordinal = data[base + k];
+            if (filter.test(ELEMENTS[ordinal])) {
+                add(to, ELEMENTS[ordinal]);
+                stateHash -= zobristKey(from, ordinal);
+                noteChange(from, ordinal);
+                moved[movedCount++] = ordinal;
+                // add() may have grown the stride
+                data = storage(from);
+                base = offset(from);
+            } else {
+                data[base + kept++] = ordinal;
+            }
+        }
+        sizes[from] = kept;
+        for (var i = 0; i < movedCount; i++) {
+            vacateIfGone(from, moved[i]);
+        }
+    }
+
+    /**
+     * Removes one occurrence of each distinct element of a cell accepted by a filter,
+     * as if each of them had been passed once to {@link #remove(int, Element)}.
+     *
+     * @param index the index of the cell.
+     * @param filter selects the elements to remove.
+     */
+    void removeOneOfEach(int index, Predicate<Element> filter) {
+        beforeChange(index);
+        boolean[] removed = null;
+        var data = storage(index);
+        var base = offset(index);
+        var kept = 0;
+        var size = sizes[index];
+        for (var k = 0; k < size; k++) {
+            var ordinal = data[base + k];
+            if ((removed == null || !removed[ordinal]) && filter.test(ELEMENTS[ordinal])) {
+                if (removed == null) {
+                    removed = new boolean[ELEMENTS.length];
+                }
+                removed[ordinal] = true;
+                stateHash -= zobristKey(index, ordinal);
+                noteChange(index, ordinal);
+            } else {
+                data[base + kept++] = ordinal;
+            }
+        }
+        sizes[index] = kept;
+        if (removed != null) {
+            for (var ordinal = 0; ordinal < removed.length; ordinal++) {
+                if (removed[ordinal]) {
+                    vacateIfGone(index, ordinal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces every occurrence of an element in a cell by another one, which is appended on top of the stack,
+     * as if each occurrence had been removed and the replacement added afterwards.
+     *
+     * @param index the index of the cell.
+     * @param source the element to replace.
+     * @param dest the replacement element.
+     */
+    void replaceAll(int index, Element source, Element dest) {
+        var sourceOrdinal = (byte) source.ordinal();
+        beforeChange(index);
+        var data = storage(index);
+        var base = offset(index);
+        var kept = 0;
+        var size = sizes[index];
+        for (var k = 0; k < size; k++) {
+            if (data[base + k] != sourceOrdinal) {
+                data[base + kept++] = data[base + k];
+            }
+        }
+        sizes[index] = kept;
+        stateHash -= (size - kept) * zobristKey(index, sourceOrdinal);
+        vacateIfGone(index, sourceOrdinal);
+        if (kept < size) {
+            noteChange(index, sourceOrdinal);
+        }
+        for (var k = kept; k < size; k++) {
+            add(index, dest);
+        }
+    }
+
+    /**
+     * Makes room for one more element in a full stack. Below {@value #MAX_STRIDE}, doubles the capacity of every stack:
+     * this only happens when a cell holds more elements than ever before. Past it, only the full stack grows, in an
+     * array of its own.
+     *
+     * @param index the index of the full cell.
+     */
+    private void grow(int index) {
+        if (tallStacks != null && tallStacks[index] != null) {
+            tallStacks[index] = Arrays.copyOf(tallStacks[index], tallStacks[index].length * 2);
+            return;
+        }
+        if (stride >= MAX_STRIDE) {
+            if (tallStacks == null) {
+                tallStacks = new byte[sizes.length][];
+            }
+            tallStacks[index] = Arrays.copyOfRange(stacks, index * stride, index * stride + stride * 2);
+            return;
+        }
+        var newStride = stride * 2;
+        var newStacks = new byte[sizes.length * newStride];
+        for (var i = 0; i < sizes.length; i++) {
+            if (tallStacks == null || tallStacks[i] == null) {
+                System.arraycopy(stacks, i * stride, newStacks, i * newStride, sizes[i]);
+            }
+        }
+        stacks = newStacks;
+        stride = newStride;
+    }
+
+    /**
+     * Checks if a cell contains at least one word (noun, operator or property).
+     *
+     * @param index the index of the cell.
+     * @return true if a word is stacked in the cell, otherwise false.
+     */
+    boolean containsWord(int index) {
+        var data = storage(index);
+        var base = offset(index);
+        for (var k = 0; k < sizes[index]; k++) {
+            if (IS_WORD[data[base + k]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a cell contains the 'IS' operator.
+     *
+     * @param index the index of the cell.
+     * @return true if an 'IS' operator is present in the cell, otherwise false.
+     */
+    public boolean containsOperatorIs(int index) {
+        return contains(index, Element.IS);
+    }
+
+    /**
+     * Retrieves the first noun word of a cell, if present.
+     *
+     * @param index the index of the cell.
+     * @return the noun if present, otherwise null.
+     */
+    public Noun getNoun(int index) {
+        for (var k = 0; k < sizes[index]; k++) {
+            var word = elementAt(index, k).getWord();
+            if (word != null && word.getNoun() != null) {
+                return word.getNoun();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the first property word of a cell, if present.
+     *
+     * @param index the index of the cell.
+     * @return the property if present, otherwise null.
+     */
+    public Property getProperty(int index) {
+        for (var k = 0; k < sizes[index]; k++) {
+            var word = elementAt(index, k).getWord();
+            if (word != null && word.getProperty() != null) {
+                return word.getProperty();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether a cell contains a noun word.
+     *
+     * @param index the index of the cell.
+     * @return true if a noun is present in the cell, otherwise false.
+     */
+    public boolean hasNoun(int index) {
+        return getNoun(index) != null;
+    }
+
+    /**
+     * Determines whether a cell contains a property word.
+     *
+     * @param index the index of the cell.
+     * @return true if a property is present in the cell, otherwise false.
+     */
+    public boolean hasProperty(int index) {
+        return getProperty(index) != null;
+    }
+
+    /**
+     * Creates a deep copy of this board.
+     *
+     * @return a new board with the same content.
+     */
+    public Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Builds a standalone {@link Cellule} holding the same elements as a cell of the board.
+     *
+     * @param index the index of the cell.
+     * @return a new Cellule, unrelated to the board.
+     */
+    public Cellule toCellule(int index) {
+        var cell = new Cellule();
+        for (var k = 0; k < sizes[index]; k++) {
+            cell.addElement(elementAt(index, k));
+        }
+        return cell;
+    }
+
+    /**
+     * Builds the legacy list-of-cells representation of the board, used for serialization.
+     *
+     * @return new rows of new cells, unrelated to the board.
+     */
+    public List<List<Cellule>> toCells() {
+        var rows = new ArrayList<List<Cellule>>(height);
+        for (var x = 0; x < height; x++) {
+            var row = new ArrayList<Cellule>(width);
+            for (var y = 0; y < width; y++) {
+                row.add(toCellule(index(x, y)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Encodes the content of the board in a compact form: the height of every stack in cell order, followed by the
+     * ordinals of every stack in cell order. Two boards of the same dimensions have equal encodings exactly when they
+     * hold the same stacks.
+     * <p>
+     * Each height is written in 7-bit groups, low group first, with the high bit of a byte set when another byte
+     * follows (see {@link #writeSize}): heights below 128, the only ones in practice, take a single byte.
+     *
+     * @return a new byte array describing the content of the board.
+     */
+    public byte[] encode() {
+        var sizeBytes = 0;
+        var total = 0;
+        for (var size : sizes) {
+            sizeBytes += sizeLength(size);
+            total += size;
+        }
+        var encoded = new byte[sizeBytes + total];
+        var position = 0;
+        for (var size : sizes) {
+            position = writeSize(encoded, position, size);
+        }
+        for (var i = 0; i < sizes.length; i++) {
+            System.arraycopy(storage(i), offset(i), encoded, position, sizes[i]);
+            position += sizes[i];
+        }
+        return encoded;
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeSize} takes for a stack height.
+     *
+     * @param size the height of the stack.
+     * @return 1 for heights below 128, more for taller stacks.
+     */
+    static int sizeLength(int size) {
+        var length = 1;
+        while (size >= 0x80) {
+            size >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the height of a stack in 7-bit groups, low group first, the high bit of each byte telling whether another
+     * one follows.
+     *
+     * @param dest the array to write to.
+     * @param position the position of the first byte.
+     * @param size the height of the stack.
+     * @return the position following the last byte written.
+     */
+    static int writeSize(byte[] dest, int position, int size) {
+        while (size >= 0x80) {
+            dest[position++] = (byte) (size & 0x7F | 0x80);
+            size >>>= 7;
+        }
+        dest[position++] = (byte) size;
+        return position;
+    }
+
+    /**
+     * Reads the height of a stack written by {@link #writeSize}.
+     *
+     * @param source the array to read from.
+     * @param position the position of the first byte.
+     * @return the height, or -1 if the bytes are not the encoding written for a height.
+     * @throws ArrayIndexOutOfBoundsException if the height goes past the end of the array.
+     */
+    static int readSize(byte[] source, int position) {
+        var size = 0;
+        for (var shift = 0; shift < Integer.SIZE; shift += 7) {
+            var b = source[position++];
+            size |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return size < 0 || b == 0 && shift > 0 ? -1 : size;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds a board from its compact encoding.
+     *
+     * @param height the number of rows of the encoded board.
+     * @param width the number of columns of the encoded board.
+     * @param encoded the encoding produced by {@link #encode()}.
+     * @return a new board with the encoded content.
+     * @throws IllegalArgumentException if the encoding does not describe a board of these dimensions.
+     */
+    public static Board decode(int height, int width, byte[] encoded) {
+        return decode(height, width, ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * Rebuilds a board from its compact encoding, read in place from a buffer.
+     *
+     * @param height the number of rows of the encoded board.
+     * @param width the number of columns of the encoded board.
+     * @param encoded the encoding produced by {@link #encode()}, from the current position of the buffer to its limit;
+     *                the buffer is read up to its limit.
+     * @return a new board with the encoded content.
+     * @throws IllegalArgumentException if the encoding does not describe a board of these dimensions.
+     */
+    public static Board decode(int height, int width, ByteBuffer encoded) {
+        var board = new Board(height, width);
+        var cells = board.getCellCount();
+        var sizes = new int[cells];
+        try {
+            for (var i = 0; i < cells; i++) {
+                sizes[i] = readSize(encoded);
+                if (sizes[i] < 0) {
+                    throw new IllegalArgumentException("Invalid board encoding for " + height + "x" + width);
+                }
+            }
+            for (var i = 0; i < cells; i++) {
+                for (var k = 0; k < sizes[i]; k++) {
+                    board.add(i, ELEMENTS[encoded.get()]);
+                }
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid board encoding for " + height + "x" + width, e);
+        }
+        if (encoded.hasRemaining()) {
+            throw new IllegalArgumentException("Invalid board encoding for " + height + "x" + width);
+        }
+        return board;
+    }
+
+    /**
+     * Reads the height of a stack written by {@link #writeSize}, at the current position of a buffer.
+     *
+     * @param source the buffer, left after the height.
+     * @return the height, or -1 if the bytes are not the encoding written for a height.
+     * @throws BufferUnderflowException if the height goes past the limit of the buffer.
+     */
+    private static int readSize(ByteBuffer source) {
+        var size = 0;
+        for (var shift = 0; shift < Integer.SIZE; shift += 7) {
+            var b = source.get();
+            size |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return size < 0 || b == 0 && shift > 0 ? -1 : size;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the content of two boards, ignoring their internal capacity.
+     *
+     * @param other the board to compare with.
+     * @return true if both boards have the same dimensions and the same stacks, false otherwise.
+     */
+    public boolean sameContent(Board other) {
+        if (other.height != height || other.width != width || !Arrays.equals(sizes, other.sizes)) {
+            return false;
+        }
+        for (var i = 0; i < sizes.length; i++) {
+            if (!Arrays.equals(storage(i), offset(i), offset(i) + sizes[i],
+                    other.storage(i), other.offset(i), other.offset(i) + sizes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The cells listed for an element: an open-addressed hash set of cell indexes with linear probing. Its table stays
+     * between two and eight times the number of cells it holds, so its size follows the occurrences of the element
+     * rather than the size of the board.
+     */
+    private static final class CellSet {
+        private static final int MIN_CAPACITY = 8;
+
+        // Cell index + 1, or 0 for a free slot
+        private int[] table;
+        private int size;
+
+        CellSet() {
+            this.table = new int[MIN_CAPACITY];
+        }
+
+        CellSet(CellSet other) {
+            this.table = other.table.clone();
+            this.size = other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static int hash(int index) {
+            var h = index * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        void add(int index) {
+            if ((size + 1) * 2 > table.length) {
+                resize(table.length * 2);
+            }
+            var mask = table.length - 1;
+            var slot = hash(index) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == index + 1) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+            size++;
+        }
+
+        void remove(int index) {
+            var mask = table.length - 1;
+            var slot = hash(index) & mask;
+            while (table[slot] != index + 1) {
+                if (table[slot] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // Backward shift: the following entries that probed past the freed slot move up, so no tombstone is needed
+            var free = slot;
+            for (var next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                var home = hash(table[next] - 1) & mask;
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    table[free] = table[next];
+                    free = next;
+                }
+            }
+            table[free] = 0;
+            size--;
+            if (table.length > MIN_CAPACITY && size * 8 < table.length) {
+                resize(table.length / 2);
+            }
+        }
+
+        /**
+         * Copies the cell indexes, in no particular order.
+         *
+         * @param dest the array receiving the indexes.
+         * @param position the position of the first index in the array.
+         * @return the position following the last index copied.
+         */
+        int copyTo(int[] dest, int position) {
+            for (var entry : table) {
+                if (entry != 0) {
+                    dest[position++] = entry - 1;
+                }
+            }
+            return position;
+        }
+
+        private void resize(int capacity) {
+            var old = table;
+            table = new int[capacity];
+            size = 0;
+            for (var entry : old) {
+                if (entry != 0) {
+                    add(entry - 1);
+                }
+            }
+        }
+    }
+}
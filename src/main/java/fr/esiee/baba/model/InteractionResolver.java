@@ -0,0 +1,200 @@
+package fr.esiee.baba.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resolves every interaction following a move in a single visit of the affected cells: melting, defeat, sinking and
+ * noun-to-noun transformations are applied cell by cell instead of one grid pass each.
+ * <p>
+ * The outcome is the one of the successive passes of {@link Transmutation}: melt, defeat and sink follow the rules
+ * in force during the move, then the rules are brought up to date and the transformations apply in rule order.
+ * All of these effects stay inside a cell, so running them one cell at a time gives the same board. The only
+ * exception is a cell losing words while it melts, is defeated or sinks, since the transformations read the rules
+ * after that change: the transformations then get their own visit of the cells holding their sources.
+ */
+public class InteractionResolver {
+    private static final int ELEMENT_COUNT = Element.values().length;
+
+    private final Level level;
+    private final Rules rules;
+
+    /**
+     * Constructs a resolver for the current state of a level.
+     *
+     * @param level the level where the interactions take place.
+     * @param rules the rules of the level, brought up to date by {@link #resolve(BitSet)}.
+     */
+    public InteractionResolver(Level level, Rules rules) {
+        this.level = Objects.requireNonNull(level);
+        this.rules = Objects.requireNonNull(rules);
+    }
+
+    /**
+     * A transformation rule resolved to the elements it replaces.
+     *
+     * @param source the element being transformed.
+     * @param dest the element replacing it.
+     */
+    private record Transformation(Element source, Element dest) {
+    }
+
+    /**
+     * Applies melt, defeat and sink to the given cells, updates the rules and applies the transformations.
+     *
+     * @param scope the cells where melt, defeat and sink may happen, or null to consider the whole grid; with a scope,
+     *              only its cells are inspected for them. Transformations always apply to the whole grid.
+     * @return true if the rule set changed, as reported by {@link Rules#refresh(Level)}.
+     */
+    public boolean resolve(BitSet scope) {
+        var board = level.getBoard();
+        // Melt, defeat and sink follow the rules in force during the move
+        var melt = flags(Property.MELT);
+        var hot = flags(Property.HOT);
+        var defeat = flags(Property.DEFEAT);
+        var you = flags(Property.YOU);
+        var sink = flags(Property.SINK);
+
+        BitSet local;
+        if (scope == null) {
+            local = rules.cellsWithProperty(board, Property.MELT);
+            local.and(rules.cellsWithProperty(board, Property.HOT));
+            var defeated = rules.cellsWithProperty(board, Property.DEFEAT);
+            defeated.and(rules.cellsWithProperty(board, Property.YOU));
+            local.or(defeated);
+            local.or(rules.cellsWithProperty(board, Property.SINK));
+        } else {
+            // Only the cells of the scope are inspected, so the cost follows the number of changed cells
+            local = new BitSet();
+            for (var index = scope.nextSetBit(0); index >= 0; index = scope.nextSetBit(index + 1)) {
+                if (any(board, index, melt) && any(board, index, hot)
+                        || any(board, index, defeat) && any(board, index, you)
+                        || any(board, index, sink)) {
+                    local.set(index);
+                }
+            }
+        }
+
+        var wordsAffected = false;
+        for (var index = local.nextSetBit(0); index >= 0 && !wordsAffected; index = local.nextSetBit(index + 1)) {
+            wordsAffected = board.containsWord(index);
+        }
+
+        var changed = false;
+        var transformations = List.<Transformation>of();
+        RuntimeException invalidTransformation = null;
+        var cells = local;
+        if (!wordsAffected) {
+            // Nothing below touches a word, so the rules can already be read again;
+            // an invalid rule is only reported once melt, defeat and sink are done, as with successive passes
+            transformations = new ArrayList<>();
+            try {
+                changed = rules.refresh(level);
+                invalidTransformation = resolveTransformations(transformations);
+            } catch (IllegalArgumentException e) {
+                invalidTransformation = e;
+            }
+            cells = transformationCells(board, transformations);
+            cells.or(local);
+        }
+
+        for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+            if (local.get(index)) {
+                if (any(board, index, melt) && any(board, index, hot)) {
+                    board.removeOneOfEach(index, element -> melt[element.ordinal()]);
+                }
+                if (any(board, index, defeat) && any(board, index, you)) {
+                    board.removeOneOfEach(index, element -> you[element.ordinal()]);
+                }
+                if (any(board, index, sink) && board.size(index) > 2) {
+                    board.clear(index);
+                    board.add(index, Element.EMPTY);
+                }
+            }
+            applyTransformations(board, index, transformations);
+        }
+
+        if (wordsAffected) {
+            changed = rules.refresh(level);
+            transformations = new ArrayList<>();
+            invalidTransformation = resolveTransformations(transformations);
+            cells = transformationCells(board, transformations);
+            for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+                applyTransformations(board, index, transformations);
+            }
+        }
+
+        if (invalidTransformation != null) {
+            throw invalidTransformation;
+        }
+        return changed;
+    }
+
+    /**
+     * Resolves the transformation rules to elements, in rule order. As with successive calls to
+     * {@link Transmutation#applyTransformation(Noun, Noun)}, the rules before an invalid one still apply.
+     *
+     * @param transformations the list receiving the resolved transformations.
+     * @return the error raised by the first invalid rule, or null if every rule is valid.
+     */
+    private RuntimeException resolveTransformations(List<Transformation> transformations) {
+        for (var entry : rules.getTransformationRules().entrySet()) {
+            try {
+                transformations.add(new Transformation(Rules.getEntityByNoun(entry.getKey()),
+                        Rules.getEntityByNoun(entry.getValue())));
+            } catch (IllegalArgumentException e) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the cells holding the source of at least one transformation. A cell reached by a chained
+     * transformation always held an earlier source, so these are the only cells that can change.
+     *
+     * @param board the board to inspect.
+     * @param transformations the transformations to apply.
+     * @return a new bitset of cell indexes.
+     */
+    private static BitSet transformationCells(Board board, List<Transformation> transformations) {
+        var cells = new BitSet();
+        for (var transformation : transformations) {
+            cells.or(board.occupancy(transformation.source()));
+        }
+        return cells;
+    }
+
+    private static void applyTransformations(Board board, int index, List<Transformation> transformations) {
+        for (var transformation : transformations) {
+            if (board.contains(index, transformation.source())) {
+                board.replaceAll(index, transformation.source(), transformation.dest());
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the elements having a property under the current rules.
+     *
+     * @param property the property to look for.
+     * @return a table indexed by element ordinal.
+     */
+    private boolean[] flags(Property property) {
+        var flags = new boolean[ELEMENT_COUNT];
+        for (var element : rules.getElementsWithProperty(property)) {
+            flags[element.ordinal()] = true;
+        }
+        return flags;
+    }
+
+    private static boolean any(Board board, int index, boolean[] flags) {
+        for (var k = 0; k < board.size(index); k++) {
+            if (flags[board.elementAt(index, k).ordinal()]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
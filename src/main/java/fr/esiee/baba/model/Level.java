@@ -1,6 +1,7 @@
 package fr.esiee.baba.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -11,10 +12,12 @@ import java.util.Set;
  * This class encapsulates the logic required to interact with and modify the game environment.
  */
 public class Level {
-    private List<List<Cellule>> grid;
+    private Board board;
     private Rules rules;
     private boolean completed;
+    private boolean fullSweepNeeded;
     private String levelFilePath;
+    private final UndoJournal undoJournal;
 
     /**
      * Constructor for the Level class. Initializes the grid, sets up the rules, and marks the level as not completed.
@@ -23,19 +26,63 @@ public class Level {
      * @param levelFilePath the file path of the level file.
      */
     public Level(List<List<Cellule>> grid, String levelFilePath) {
-        this.grid = Objects.requireNonNull(grid);
+        this(Board.fromCells(Objects.requireNonNull(grid)), levelFilePath);
+    }
+
+    /**
+     * Constructor for the Level class working directly on a compact board.
+     *
+     * @param board the board holding the level layout; owned by the level from now on.
+     * @param levelFilePath the file path of the level file.
+     */
+    public Level(Board board, String levelFilePath) {
+        this.board = Objects.requireNonNull(board);
         this.rules = new Rules(this);
         this.completed = false;
+        this.fullSweepNeeded = true;
         this.levelFilePath = Objects.requireNonNull(levelFilePath);
+        this.undoJournal = new UndoJournal(UndoJournal.DEFAULT_BUDGET_BYTES);
+        board.setJournal(undoJournal);
     }
 
     /**
-     * Retrieves the current state of the game grid.
+     * Retrieves the current state of the game grid, as rows of cells.
+     * The rows are built from the compact board and are kept for serialization:
+     * modifying them does not affect the level.
      *
      * @return the grid, a list of lists containing cells.
      */
     public List<List<Cellule>> getGrid() {
-        return grid;
+        return board.toCells();
+    }
+
+    /**
+     * Retrieves the compact board the level is played on.
+     *
+     * @return the board of the level.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Retrieves the rules currently in force in the level.
+     *
+     * @return the rules of the level, kept up to date by {@link #update(Direction, boolean)}.
+     */
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets a 64-bit hash identifying the current state of the level's grid, maintained incrementally as the grid
+     * changes. Two states of the same level with the same elements in every cell share the same hash, which makes it
+     * suitable for state caches, transposition tables or resynchronisation checks.
+     *
+     * @return the Zobrist hash of the grid.
+     */
+    public long stateHash() {
+        return board.stateHash();
     }
 
     /**
@@ -51,9 +98,9 @@ public class Level {
      * Displays the current state of the grid to the console, representing each cell's contents.
      */
     public void render() {
-        for (var row : grid) {
-            for (var cell : row) {
-                System.out.print(cell.toString() + " ");
+        for (var x = 0; x < board.getHeight(); x++) {
+            for (var y = 0; y < board.getWidth(); y++) {
+                System.out.print(board.toCellule(board.index(x, y)).toString() + " ");
             }
             System.out.println();
         }
@@ -61,7 +108,9 @@ public class Level {
 
     /**
      * Updates the game level based on player movement in the specified direction.
-     * This includes moving entities, applying transformations, and reinitializing the rules.
+     * This includes moving entities, applying transformations, and bringing the rules up to date
+     * (only the sentences crossing cells whose words changed are read again).
+     * The cells changed by the update are recorded, so that it can be reverted with {@link #undo()}.
      *
      * @param direction the direction of movement triggered by the player.
      * @param isJump whether the entity can jump or not.
@@ -70,24 +119,15 @@ public class Level {
     	Objects.requireNonNull(direction);
         var dx = direction.getDx();
         var dy = direction.getDy();
-        updateEntities(dx, dy, isJump);
-        Transmutation transmutation = new Transmutation(this, rules);
-        transmutation.checkMelt();
-        transmutation.checkDefeat();
-        transmutation.checkSink();
-        rules.initRules(this);
-        applyAllTransformations(transmutation);
-    }
-
-    /**
-     * Applies all transformations based on the current rules after moving entities and updating the game state.
-     * 
-     * @param transmutation the Transmutation object handling the transformation processes.
-     */
-    private void applyAllTransformations(Transmutation transmutation) {
-        var transformationRules = rules.getTransformationRules();
-        for (var entry : transformationRules.entrySet()) {
-            transmutation.applyTransformation(entry.getKey(), entry.getValue());
+        undoJournal.beginStep();
+        try {
+            updateEntities(dx, dy, isJump);
+            // Only cells changed since the previous passes can react, unless the rules themselves changed
+            var changedCells = board.takeDirtyCells();
+            var scope = fullSweepNeeded ? null : changedCells;
+            fullSweepNeeded = new InteractionResolver(this, rules).resolve(scope);
+        } finally {
+            undoJournal.endStep();
         }
     }
 
@@ -99,28 +139,52 @@ public class Level {
      * @param isJump whether the entity can jump or not.
      */
     private void updateEntities(int dx, int dy, boolean isJump) {
-        var moves = new HashSet<EntityMove>();
-        for (var x = 0; x < grid.size(); x++) {
-            for (var y = 0; y < grid.get(x).size(); y++) {
-                var cell = grid.get(x).get(y);
-                var youElements = rules.getYouElements(cell);
-                if (!youElements.isEmpty()) {
-                    for (var element : youElements) {
-                        cell.removeElement(element);
-                        if (isJump) {
-                            moves.add(new EntityMove(x, y, 2 * dx, 2 * dy, element));
-                        } else {
-                            moves.add(new EntityMove(x, y, dx, dy, element));
-                        }
-                    }
-                }
-            }
+        var moves = new ArrayList<EntityMove>();
+        // Only the cells listed for the YOU elements are visited, whatever the size of the board
+        for (var index : board.cellsOf(rules.getElementsWithProperty(Property.YOU))) {
+            var x = index / board.getWidth();
+            var y = index % board.getWidth();
+            collectYouMoves(index, x, y, isJump ? 2 * dx : dx, isJump ? 2 * dy : dy, moves);
         }
+        // Cells known to be part of a blocked chain during this step; see pushChain
+        var blockedCells = new BitSet();
         for (var move : moves) {
-            if (!handleEntityMove(move)) {
-                grid.get(move.x).get(move.y).addElement(move.element); // Put back if move fails
+            if (!handleEntityMove(move, blockedCells)) {
+                board.add(board.index(move.x, move.y), move.element); // Put back if move fails
+            }
+        }
+    }
+
+    /**
+     * Removes each distinct "YOU" element of a cell from the board and records its move.
+     *
+     * @param index the index of the cell.
+     * @param x the row of the cell.
+     * @param y the column of the cell.
+     * @param dx the row increment of the move.
+     * @param dy the column increment of the move.
+     * @param moves the list receiving the moves.
+     */
+    private void collectYouMoves(int index, int x, int y, int dx, int dy, List<EntityMove> moves) {
+        var k = 0;
+        while (k < board.size(index)) {
+            var element = board.elementAt(index, k);
+            if (rules.hasProperty(element, Property.YOU) && !alreadyMoving(moves, x, y, element)) {
+                board.remove(index, element);
+                moves.add(new EntityMove(x, y, dx, dy, element));
+            } else {
+                k++;
+            }
+        }
+    }
+
+    private static boolean alreadyMoving(List<EntityMove> moves, int x, int y, Element element) {
+        for (var i = moves.size() - 1; i >= 0 && moves.get(i).x == x && moves.get(i).y == y; i--) {
+            if (moves.get(i).element == element) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -128,65 +192,97 @@ public class Level {
      * pushing other entities, or stopping due to barriers.
      *
      * @param move the EntityMove containing the entity and its move details.
+     * @param blockedCells the cells already found in a blocked chain during this step.
      * @return true if the entity was successfully moved, false otherwise.
      */
-    private boolean handleEntityMove(EntityMove move) {
+    private boolean handleEntityMove(EntityMove move, BitSet blockedCells) {
     	Objects.requireNonNull(move);
         var newX = move.x + move.dx;
         var newY = move.y + move.dy;
         if (isWithinBounds(newX, newY)) {
-            var targetCell = grid.get(newX).get(newY);
-            if (rules.isWin(targetCell)) {
+            var target = board.index(newX, newY);
+            if (rules.cellHasProperty(board, target, Property.WIN)) {
                 System.out.println("You Win!");
                 this.completed = true;
                 return true;
             }
-            if (pushRecursive(move.x, move.y, newX, newY)) {
-                targetCell.addElement(move.element);
+            if (pushChain(move.x, move.y, newX, newY, blockedCells)) {
+                board.add(target, move.element);
                 return true;
             }
         } else {
             if (newX < 0) newX = 0;
-            if (newX >= grid.size()) newX = grid.size() - 1;
+            if (newX >= board.getHeight()) newX = board.getHeight() - 1;
             if (newY < 0) newY = 0;
-            if (newY >= grid.get(0).size()) newY = grid.get(0).size() - 1;
-            grid.get(newX).get(newY).addElement(move.element);
+            if (newY >= board.getWidth()) newY = board.getWidth() - 1;
+            board.add(board.index(newX, newY), move.element);
             return true;
         }
         return false;
     }
 
     /**
-     * Recursively attempts to push entities within the grid, checking if movement is possible and applying movement recursively.
+     * Attempts to push the run of pushable cells starting at a target cell one move further, as a whole.
+     * The run is walked once up to the first cell able to receive it, then shifted starting from its far end,
+     * so that every cell moves into one that was just vacated.
+     * <p>
+     * A run that cannot move stays blocked for the rest of the step: all moves of a step share the same direction,
+     * and a successful push never empties a cell of a blocked run, so later movers reaching one of its cells give up
+     * at once instead of walking it again.
      *
-     * @param oldX the starting x-coordinate.
-     * @param oldY the starting y-coordinate.
-     * @param newX the intended new x-coordinate after pushing.
-     * @param newY the intended new y-coordinate after pushing.
-     * @return true if the entity can be pushed to the new location, false otherwise.
+     * @param oldX the x-coordinate of the pushing entity.
+     * @param oldY the y-coordinate of the pushing entity.
+     * @param newX the x-coordinate of the target cell.
+     * @param newY the y-coordinate of the target cell.
+     * @param blockedCells the cells already found in a blocked run during this step; updated on failure.
+     * @return true if the target cell can now be entered, false otherwise.
      */
-    private boolean pushRecursive(int oldX, int oldY, int newX, int newY) {
-        if (!isWithinBounds(newX, newY)) return false;
-        var targetCell = grid.get(newX).get(newY);
-        if (targetCell.isEmpty()) return true;
-        if (!rules.getStopElements(targetCell).isEmpty()) return false;
-        var pushableElements = rules.getPushableElements(targetCell);
-        if (!pushableElements.isEmpty()) {
-            var dx = newX - oldX;
-            var dy = newY - oldY;
-            var nextX = newX + dx;
-            var nextY = newY + dy;
-            if (isWithinBounds(nextX, nextY) && pushRecursive(newX, newY, nextX, nextY)) {
-                var poppedElements = targetCell.popElements(pushableElements);
-                grid.get(nextX).get(nextY).getElements().addAll(poppedElements.getElements());
-                return true;
-            } else {
-                return false;
+    private boolean pushChain(int oldX, int oldY, int newX, int newY, BitSet blockedCells) {
+        var dx = newX - oldX;
+        var dy = newY - oldY;
+        var length = 0;
+        var x = newX;
+        var y = newY;
+        while (true) {
+            if (!isWithinBounds(x, y)) {
+                return block(newX, newY, dx, dy, length, blockedCells);
+            }
+            var index = board.index(x, y);
+            if (blockedCells.get(index) || rules.cellHasProperty(board, index, Property.STOP)) {
+                return block(newX, newY, dx, dy, length + 1, blockedCells);
+            }
+            if (board.size(index) == 0 || !rules.cellHasPushable(board, index)) {
+                break;
             }
+            length++;
+            x += dx;
+            y += dy;
+        }
+        for (var k = length; k > 0; k--) {
+            var from = board.index(newX + (k - 1) * dx, newY + (k - 1) * dy);
+            board.moveElements(from, board.index(newX + k * dx, newY + k * dy), rules::isPushable);
         }
         return true;
     }
 
+    /**
+     * Records the cells of a run that cannot be pushed.
+     *
+     * @param x the x-coordinate of the first cell of the run.
+     * @param y the y-coordinate of the first cell of the run.
+     * @param dx the row increment between two cells of the run.
+     * @param dy the column increment between two cells of the run.
+     * @param length the number of cells of the run within the board.
+     * @param blockedCells the set receiving the cells.
+     * @return false, the outcome of the push.
+     */
+    private boolean block(int x, int y, int dx, int dy, int length, BitSet blockedCells) {
+        for (var k = 0; k < length; k++) {
+            blockedCells.set(board.index(x + k * dx, y + k * dy));
+        }
+        return false;
+    }
+
     /**
      * Prints the content of a specific cell at the given coordinates.
      * Useful for debugging or for displaying the cell state during gameplay.
@@ -196,7 +292,7 @@ public class Level {
      */
     public void printCellContent(int x, int y) {
         if (isWithinBounds(x, y)) {
-            var cell = grid.get(x).get(y);
+            var cell = board.toCellule(board.index(x, y));
             System.out.println("Content of cell (" + x + ", " + y + "): " + cell.getElements());
         } else {
             System.out.println("Cell (" + x + ", " + y + ") is out of bounds.");
@@ -208,8 +304,8 @@ public class Level {
      * This method loops through the entire grid and prints the contents of each cell.
      */
     public void printGridContent() {
-        for (var x = 0; x < grid.size(); x++) {
-            for (var y = 0; y < grid.get(x).size(); y++) {
+        for (var x = 0; x < board.getHeight(); x++) {
+            for (var y = 0; y < board.getWidth(); y++) {
                 printCellContent(x, y);
             }
         }
@@ -224,7 +320,7 @@ public class Level {
      * @return true if the coordinates are within the grid bounds, false otherwise.
      */
     private boolean isWithinBounds(int x, int y) {
-        return x >= 0 && x < grid.size() && y >= 0 && y < grid.get(0).size();
+        return board.isWithinBounds(x, y);
     }
 
     /**
@@ -243,40 +339,73 @@ public class Level {
      * @return a deep copy of the grid
      */
     public List<List<Cellule>> copyGrid() {
-        List<List<Cellule>> gridCopy = new ArrayList<>();
-        for (List<Cellule> row : grid) {
-            List<Cellule> rowCopy = new ArrayList<>();
-            for (Cellule cell : row) {
-                rowCopy.add(cell.copy());
-            }
-            gridCopy.add(rowCopy);
-        }
-        return gridCopy;
+        return board.toCells();
+    }
+
+    /**
+     * Creates an independent copy of this level, with its own grid and rules.
+     * Used to hand out playable instances of shared level templates.
+     *
+     * @return a new Level in the same state as this one
+     */
+    public Level copy() {
+        var copied = new Level(board.copy(), levelFilePath);
+        copied.completed = completed;
+        return copied;
     }
 
     /**
      * Restores the grid from a saved state.
-     * Used for UNDO functionality.
+     * The undo history is lost, since it describes changes of the replaced grid.
      *
      * @param savedGrid the grid state to restore
      */
     public void restoreGrid(List<List<Cellule>> savedGrid) {
-        this.grid = savedGrid;
+        this.board = Board.fromCells(savedGrid);
         // Reinitialize rules after restoring grid
         this.rules = new Rules(this);
-        this.rules.initRules(this);
+        this.fullSweepNeeded = true;
+        undoJournal.clear();
+        board.setJournal(undoJournal);
+    }
+
+    /**
+     * Reverts the last update by writing back the cells it changed.
+     * Only the sentences crossing cells whose words changed are read again.
+     *
+     * @return true if an update was reverted, false if there is nothing left to undo.
+     */
+    public boolean undo() {
+        if (!undoJournal.undo(board)) {
+            return false;
+        }
+        rules.refresh(this);
+        // The reactions pending in the restored state are not known, so the next update looks at every cell
+        board.takeDirtyCells();
+        fullSweepNeeded = true;
+        return true;
+    }
+
+    /**
+     * Gets the number of updates that can currently be reverted with {@link #undo()}.
+     *
+     * @return the depth of the undo history.
+     */
+    public int getUndoDepth() {
+        return undoJournal.size();
     }
 
     /**
      * Retrieves the elements that have the "YOU" property in the level.
+     * Only the elements with the property are looked up on the board, the grid is never scanned.
      * 
      * @return a set of elements with the "YOU" property.
      */
     public Set<Element> getYouElements() {
         var youElements = new HashSet<Element>();
-        for (var row : grid) {
-            for (var cell : row) {
-                youElements.addAll(rules.getYouElements(cell));
+        for (var element : rules.getElementsWithProperty(Property.YOU)) {
+            if (board.isPresent(element)) {
+                youElements.add(element);
             }
         }
         return youElements;
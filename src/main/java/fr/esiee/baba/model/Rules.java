@@ -11,6 +11,20 @@ public class Rules {
     private Map<Element, Set<Property>> nounToProperty;
     private Map<Property, Set<Element>> propertyToNoun;
     private Map<Noun, Noun> transformationRules;
+    private final boolean[][] propertyTable;
+    private final Element[][] elementsWithProperty;
+    private final TreeMap<Integer, List<Sentence>> sentences;
+    private boolean hasManualRules;
+
+    /**
+     * A rule read on the board around an 'IS' operator: either "NOUN IS PROPERTY" or "NOUN IS NOUN".
+     *
+     * @param subject the noun before the operator.
+     * @param property the property after the operator, or null for a transformation.
+     * @param target the noun after the operator, or null for a property rule.
+     */
+    private record Sentence(Noun subject, Property property, Noun target) {
+    }
 
     /**
      * Constructs a new Rules object associated with a given level.
@@ -20,7 +34,10 @@ public class Rules {
     public Rules(Level level) {
         this.nounToProperty = new HashMap<>();
         this.propertyToNoun = new HashMap<>();
-        this.transformationRules = new HashMap<>();
+        this.transformationRules = new LinkedHashMap<>(); // scan order, so chained transformations are reproducible
+        this.propertyTable = new boolean[Property.values().length][Element.values().length];
+        this.elementsWithProperty = new Element[Property.values().length][];
+        this.sentences = new TreeMap<>();
         initRules(level);
     }
 
@@ -31,71 +48,130 @@ public class Rules {
      * @param level the level whose grid is scanned to establish rules.
      */
     public void initRules(Level level) {
-        nounToProperty.clear();
-        propertyToNoun.clear();
-        transformationRules.clear();
-        var grid = level.getGrid();
-        for (var i = 0; i < grid.size(); i++) {
-            for (var j = 0; j < grid.get(i).size(); j++) {
-                if (isOperatorIs(grid, i, j)) {
-                    checkVerticalRules(grid, i, j);
-                    checkHorizontalRules(grid, i, j);
+        sentences.clear();
+        var board = level.getBoard();
+        for (var index = 0; index < board.getCellCount(); index++) {
+            if (board.containsOperatorIs(index)) {
+                var found = readSentences(board, index);
+                if (!found.isEmpty()) {
+                    sentences.put(index, found);
                 }
             }
         }
+        board.clearTextChanges();
+        rebuildMappings();
     }
 
     /**
-     * Evaluates potential vertical rules based on a central 'IS' operator positioned between two elements.
+     * Incrementally brings the rules up to date with the level's board. Only the 'IS' operators on or next to a
+     * cell whose words changed since the last derivation are read again; when no word moved, the current rule set
+     * is kept as is.
      *
-     * @param grid the current grid of cells being evaluated.
-     * @param i the row index of the 'IS' operator.
-     * @param j the column index of the 'IS' operator.
+     * @param level the level whose board changed.
+     * @return true if the rule set changed, false otherwise.
      */
-    private void checkVerticalRules(List<List<Cellule>> grid, int i, int j) {
-        if (i > 0 && i < grid.size() - 1) {
-            var above = grid.get(i - 1).get(j);
-            var below = grid.get(i + 1).get(j);
-            if (isValidRule(above, below)) {
-                if (above.hasNoun() && below.hasNoun()) {
-                    addTransformationRule(above.getNoun(), below.getNoun());
-                } else {
-                    addRule(getEntityByNoun(above.getNoun()), below.getProperty());
-                }
-            }
+    public boolean refresh(Level level) {
+        var board = level.getBoard();
+        var changes = board.getTextChanges();
+        if (changes.isEmpty() && !hasManualRules) {
+            return false;
         }
+        var modified = hasManualRules;
+        var width = board.getWidth();
+        for (var index = changes.nextSetBit(0); index >= 0; index = changes.nextSetBit(index + 1)) {
+            modified |= rereadOperator(board, index);
+            modified |= rereadOperator(board, index - 1);
+            modified |= rereadOperator(board, index + 1);
+            modified |= rereadOperator(board, index - width);
+            modified |= rereadOperator(board, index + width);
+        }
+        board.clearTextChanges();
+        if (modified) {
+            rebuildMappings();
+        }
+        return modified;
     }
 
     /**
-     * Evaluates potential horizontal rules based on a central 'IS' operator positioned between two elements.
+     * Reads again the sentences around a cell, in case it holds an 'IS' operator.
      *
-     * @param grid the current grid of cells being evaluated.
-     * @param i the row index of the cell containing the 'IS' operator.
-     * @param j the column index of the 'IS' operator.
+     * @param board the board being evaluated.
+     * @param index the index of the cell; may be out of the board.
+     * @return true if the sentences of this cell changed, false otherwise.
      */
-    private void checkHorizontalRules(List<List<Cellule>> grid, int i, int j) {
-        if (j > 0 && j < grid.get(i).size() - 1) {
-            var left = grid.get(i).get(j - 1);
-            var right = grid.get(i).get(j + 1);
-            if (isValidRule(left, right)) {
-                if (left.hasNoun() && right.hasNoun()) {
-                    addTransformationRule(left.getNoun(), right.getNoun());
-                } else {
-                    addRule(getEntityByNoun(left.getNoun()), right.getProperty());
-                }
+    private boolean rereadOperator(Board board, int index) {
+        if (index < 0 || index >= board.getCellCount()) {
+            return false;
+        }
+        var found = board.containsOperatorIs(index) ? readSentences(board, index) : List.<Sentence>of();
+        List<Sentence> previous;
+        if (found.isEmpty()) {
+            previous = sentences.remove(index);
+        } else {
+            previous = sentences.put(index, found);
+        }
+        return !found.equals(previous == null ? List.of() : previous);
+    }
+
+    /**
+     * Reads the vertical then the horizontal sentence formed around an 'IS' operator.
+     *
+     * @param board the board being evaluated.
+     * @param index the index of the cell holding the operator.
+     * @return the valid sentences, possibly none.
+     */
+    private List<Sentence> readSentences(Board board, int index) {
+        var i = index / board.getWidth();
+        var j = index % board.getWidth();
+        var found = new ArrayList<Sentence>(2);
+        if (i > 0 && i < board.getHeight() - 1) {
+            readSentence(board, board.index(i - 1, j), board.index(i + 1, j), found);
+        }
+        if (j > 0 && j < board.getWidth() - 1) {
+            readSentence(board, board.index(i, j - 1), board.index(i, j + 1), found);
+        }
+        return found;
+    }
+
+    /**
+     * Reads the sentence formed by the cells around an 'IS' operator, if they form a valid one.
+     *
+     * @param board the board being evaluated.
+     * @param first the index of the cell before the operator.
+     * @param second the index of the cell after the operator.
+     * @param found the list receiving the sentence.
+     */
+    private void readSentence(Board board, int first, int second, List<Sentence> found) {
+        if (board.hasNoun(first) && (board.hasProperty(second) || board.hasNoun(second))) {
+            if (board.hasNoun(second)) {
+                found.add(new Sentence(board.getNoun(first), null, board.getNoun(second)));
+            } else {
+                found.add(new Sentence(board.getNoun(first), board.getProperty(second), null));
             }
         }
     }
 
     /**
-     * Checks if the combination of two adjacent cells can form a valid rule based on game mechanics.
-     * 
-     * @param first the first cell involved in the potential rule.
-     * @param second the second cell involved in the potential rule.
-     * @return true if a valid rule can be formed, false otherwise.
+     * Rebuilds every mapping from the sentences, in board order, as a full scan of the grid would.
      */
-    private boolean isValidRule(Cellule first, Cellule second) {
-        return first.hasNoun() && (second.hasProperty() || second.hasNoun());
+    private void rebuildMappings() {
+        nounToProperty.clear();
+        propertyToNoun.clear();
+        transformationRules.clear();
+        for (var row : propertyTable) {
+            Arrays.fill(row, false);
+        }
+        Arrays.fill(elementsWithProperty, null);
+        hasManualRules = false;
+        for (var found : sentences.values()) {
+            for (var sentence : found) {
+                if (sentence.target() != null) {
+                    addTransformationRule(sentence.subject(), sentence.target());
+                } else {
+                    addRule(getEntityByNoun(sentence.subject()), sentence.property());
+                }
+            }
+        }
     }
 
     /**
@@ -107,6 +183,8 @@ public class Rules {
     private void addRule(Element noun, Property property) {
         nounToProperty.computeIfAbsent(noun, k -> new HashSet<>()).add(property);
         propertyToNoun.computeIfAbsent(property, k -> new HashSet<>()).add(noun);
+        propertyTable[property.ordinal()][noun.ordinal()] = true;
+        elementsWithProperty[property.ordinal()] = null;
     }
 
     /**
@@ -127,6 +205,7 @@ public class Rules {
      * @param third the third element (noun or property)
      */
     public void addRule(Element first, Element second, Element third) {
+        hasManualRules = true; // dropped by the next derivation, as with a full rescan
         if (second != Element.IS) {
             throw new IllegalArgumentException("The second element must be the operator IS.");
         }
@@ -144,18 +223,6 @@ public class Rules {
         }
     }
 
-    /**
-     * Determines if the 'IS' operator is present in a specified cell.
-     * 
-     * @param grid the grid to check.
-     * @param i the row index of the cell.
-     * @param j the column index of the cell.
-     * @return true if the 'IS' operator is present, false otherwise.
-     */
-    private boolean isOperatorIs(List<List<Cellule>> grid, int i, int j) {
-        return grid.get(i).get(j).containsOperatorIs();
-    }
-
     /**
      * Prints all mappings from nouns to properties and properties to nouns, as well as any transformation rules.
      * This method is useful for debugging and verifying the current state of the game's rules.
@@ -293,6 +360,87 @@ public class Rules {
         return !getWinElements(cell).isEmpty();
     }
 
+    /**
+     * Determines if a cell of the board contains at least one element with a specific property.
+     *
+     * @param board the board holding the cell.
+     * @param index the index of the cell.
+     * @param property the property to check for.
+     * @return true if an element of the cell has the property, false otherwise.
+     */
+    public boolean cellHasProperty(Board board, int index, Property property) {
+        for (var k = 0; k < board.size(index); k++) {
+            if (hasProperty(board.elementAt(index, k), property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a cell of the board contains at least one element that can be pushed.
+     *
+     * @param board the board holding the cell.
+     * @param index the index of the cell.
+     * @return true if an element of the cell can be pushed, false otherwise.
+     */
+    public boolean cellHasPushable(Board board, int index) {
+        for (var k = 0; k < board.size(index); k++) {
+            if (isPushable(board.elementAt(index, k))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an element can be pushed according to the current game rules. All words are pushable.
+     *
+     * @param element the element to check.
+     * @return true if the element is a word or has the PUSH property, false otherwise.
+     */
+    public boolean isPushable(Element element) {
+        return element.getWord() != null || hasProperty(element, Property.PUSH);
+    }
+
+    /**
+     * Checks if a single element has a specific property.
+     *
+     * @param element the element to check.
+     * @param property the property to check for.
+     * @return true if the element has the property, false otherwise.
+     */
+    public boolean hasProperty(Element element, Property property) {
+        return propertyTable[property.ordinal()][element.ordinal()];
+    }
+
+    /**
+     * Retrieves every element that currently has a specific property.
+     *
+     * @param property the property to look for.
+     * @return the elements with the property; the array is shared and must not be modified.
+     */
+    public Element[] getElementsWithProperty(Property property) {
+        var elements = elementsWithProperty[property.ordinal()];
+        if (elements == null) {
+            elements = propertyToNoun.getOrDefault(property, Collections.emptySet()).toArray(new Element[0]);
+            elementsWithProperty[property.ordinal()] = elements;
+        }
+        return elements;
+    }
+
+    /**
+     * Computes the set of cells of the board holding at least one element with a specific property.
+     * Combine the results with {@link BitSet#and(BitSet)} to find cells where several properties meet.
+     *
+     * @param board the board to look at.
+     * @param property the property to look for.
+     * @return a new bitset of cell indexes, free to be modified by the caller.
+     */
+    public BitSet cellsWithProperty(Board board, Property property) {
+        return board.cellsContaining(getElementsWithProperty(property));
+    }
+
     /**
      * Retrieves the current set of transformation rules.
      * 
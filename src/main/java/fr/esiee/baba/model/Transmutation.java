@@ -25,17 +25,19 @@ public class Transmutation {
      * Applies the melt rule across the game grid. Elements with the MELT property are removed if they share a cell with elements having the HOT property.
      */
     public void checkMelt() {
-       var grid = level.getGrid();
-        for (var row : grid) {
-            for (var cell : row) {
-                var meltElements = rules.getEntitiesByProperty(cell, Property.MELT);
-                var hotElements = rules.getEntitiesByProperty(cell, Property.HOT);
-                if (!meltElements.isEmpty() && !hotElements.isEmpty()) {
-                    for (Element meltElement : meltElements) {
-                        cell.removeElement(meltElement);
-                    }
-                }
-            }
+        checkMelt(null);
+    }
+
+    /**
+     * Applies the melt rule to some cells only.
+     *
+     * @param scope the cells to evaluate, or null to sweep the whole grid.
+     */
+    public void checkMelt(BitSet scope) {
+        var board = level.getBoard();
+        var cells = candidates(board, scope, Property.MELT, Property.HOT);
+        for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+            board.removeOneOfEach(index, element -> rules.hasProperty(element, Property.MELT));
         }
     }
 
@@ -43,17 +45,19 @@ public class Transmutation {
      * Applies the defeat rule across the game grid. Elements with the YOU property are removed if they share a cell with elements having the DEFEAT property.
      */
     public void checkDefeat() {
-        var grid = level.getGrid();
-        for (var row : grid) {
-            for (var cell : row) {
-                var defeatElements = rules.getEntitiesByProperty(cell, Property.DEFEAT);
-                var youElements = rules.getEntitiesByProperty(cell, Property.YOU);
-                if (!defeatElements.isEmpty() && !youElements.isEmpty()) {
-                    for (Element youElement : youElements) {
-                        cell.removeElement(youElement);
-                    }
-                }
-            }
+        checkDefeat(null);
+    }
+
+    /**
+     * Applies the defeat rule to some cells only.
+     *
+     * @param scope the cells to evaluate, or null to sweep the whole grid.
+     */
+    public void checkDefeat(BitSet scope) {
+        var board = level.getBoard();
+        var cells = candidates(board, scope, Property.DEFEAT, Property.YOU);
+        for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+            board.removeOneOfEach(index, element -> rules.hasProperty(element, Property.YOU));
         }
     }
 
@@ -61,20 +65,55 @@ public class Transmutation {
      * Applies the sink rule across the game grid. Both the element with the SINK property and any other element in the same cell are removed.
      */
     public void checkSink() {
-        var grid = level.getGrid();
-        for (var row : grid) {
-            for (var cell : row) {
-                var sinkElements = rules.getEntitiesByProperty(cell, Property.SINK);
-                if (!sinkElements.isEmpty() && cell.getElements().size() > 2) {
-                    cell.getElements().clear();
-                    cell.addElement(Element.EMPTY);
-                }
+        checkSink(null);
+    }
+
+    /**
+     * Applies the sink rule to some cells only.
+     *
+     * @param scope the cells to evaluate, or null to sweep the whole grid.
+     */
+    public void checkSink(BitSet scope) {
+        var board = level.getBoard();
+        var cells = candidates(board, scope, Property.SINK);
+        for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+            if (board.size(index) > 2) {
+                board.clear(index);
+                board.add(index, Element.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Finds the cells holding an element with each of the given properties. Without a scope the occupancy bitsets
+     * of the whole board are combined; with a scope only the cells of the scope are inspected, so the cost follows
+     * the number of changed cells rather than the size of the board.
+     *
+     * @param board the board to inspect.
+     * @param scope the cells to consider, or null for the whole board.
+     * @param properties the properties that must all be present in a cell.
+     * @return a new bitset of matching cell indexes.
+     */
+    private BitSet candidates(Board board, BitSet scope, Property... properties) {
+        if (scope == null) {
+            var cells = rules.cellsWithProperty(board, properties[0]);
+            for (var i = 1; i < properties.length; i++) {
+                cells.and(rules.cellsWithProperty(board, properties[i]));
             }
+            return cells;
         }
+        var cells = new BitSet();
+        for (var index = scope.nextSetBit(0); index >= 0; index = scope.nextSetBit(index + 1)) {
+            var matches = true;
+            for (var property : properties) {
+                matches &= rules.cellHasProperty(board, index, property);
+            }
+            if (matches) {
+                cells.set(index);
+            }
+        }
+        return cells;
     }
-    
-    
-    
 
     /**
      * Transforms all entities of the specified source type to the destination type within the entire grid.
@@ -84,23 +123,13 @@ public class Transmutation {
      * @param dest the noun representing the new type of entity after transformation.
      */
     public void applyTransformation(Noun source, Noun dest) {
-        var grid = level.getGrid();
+        var board = level.getBoard();
         var sourceElement = Rules.getEntityByNoun(Objects.requireNonNull(source));
         var destElement = Rules.getEntityByNoun(Objects.requireNonNull(dest));
 
-        for (var row : grid) {
-            for (var cell : row) {
-                var elementsToTransform = new ArrayList<Element>();
-                for (var element : cell.getElements()) {
-                    if (element.getEntity() != null && element == sourceElement) {
-                        elementsToTransform.add(element);
-                    }
-                }
-                for (var element : elementsToTransform) {
-                    cell.removeElement(element);
-                    cell.addElement(destElement);
-                }
-            }
+        var cells = board.cellsContaining(sourceElement);
+        for (var index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+            board.replaceAll(index, sourceElement, destElement);
         }
     }
 
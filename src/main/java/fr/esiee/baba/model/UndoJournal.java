@@ -0,0 +1,153 @@
+package fr.esiee.baba.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Records the cells changed by each step of a level, so that steps can be undone without keeping whole boards.
+ * <p>
+ * During a step, the first time a cell of the board is about to change, its stack is saved as it was before the step.
+ * Undoing the step writes those stacks back. A step is stored as one byte array of entries
+ * {@code [cell index (4 bytes), stack height (1 byte below 128, see Board#writeSize), element ordinals...]}; the
+ * oldest steps are forgotten once the recorded bytes exceed the budget. Each step is also charged a fixed overhead, so
+ * that steps changing nothing (a blocked move, say) still count against the budget.
+ */
+public class UndoJournal {
+    /**
+     * Default budget of a level's journal, in recorded bytes: over a thousand ordinary moves.
+     */
+    public static final int DEFAULT_BUDGET_BYTES = 64 * 1024;
+
+    /**
+     * Bytes charged for every step on top of its entries: roughly the header of its array and its slot in the deque.
+     */
+    static final int STEP_OVERHEAD_BYTES = 24;
+
+    private static final byte[] EMPTY_STEP = new byte[0];
+
+    private final int budgetBytes;
+    private final Deque<byte[]> steps;
+    private long recordedBytes;
+    private byte[] buffer;
+    private int length;
+    private boolean recording;
+    private final BitSet touched;
+
+    /**
+     * Constructs an empty journal.
+     *
+     * @param budgetBytes the number of recorded bytes above which the oldest steps are dropped.
+     */
+    public UndoJournal(int budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("The undo budget must be positive: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        this.steps = new ArrayDeque<>();
+        this.buffer = new byte[64];
+        this.touched = new BitSet();
+    }
+
+    /**
+     * Starts recording a new step. Changes made outside of a step are not recorded.
+     */
+    void beginStep() {
+        recording = true;
+        length = 0;
+        touched.clear();
+    }
+
+    /**
+     * Ends the current step and keeps it, even if nothing changed, so that each step is undone on its own.
+     */
+    void endStep() {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        steps.addLast(length == 0 ? EMPTY_STEP : Arrays.copyOf(buffer, length));
+        recordedBytes += length + STEP_OVERHEAD_BYTES;
+        while (recordedBytes > budgetBytes && steps.size() > 1) {
+            recordedBytes -= steps.removeFirst().length + STEP_OVERHEAD_BYTES;
+        }
+    }
+
+    /**
+     * Saves the stack of a cell about to change, unless it was already saved during the current step.
+     *
+     * @param index the index of the cell.
+     * @param stacks the stack storage of the board.
+     * @param offset the position of the cell's stack in the storage.
+     * @param size the height of the cell's stack.
+     */
+    void recordCell(int index, byte[] stacks, int offset, int size) {
+        if (!recording || touched.get(index)) {
+            return;
+        }
+        touched.set(index);
+        var entry = 4 + Board.sizeLength(size) + size;
+        if (length + entry > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + entry));
+        }
+        buffer[length++] = (byte) (index >>> 24);
+        buffer[length++] = (byte) (index >>> 16);
+        buffer[length++] = (byte) (index >>> 8);
+        buffer[length++] = (byte) index;
+        length = Board.writeSize(buffer, length, size);
+        System.arraycopy(stacks, offset, buffer, length, size);
+        length += size;
+    }
+
+    /**
+     * Undoes the last recorded step by writing back the stacks saved during that step.
+     *
+     * @param board the board the step was recorded on.
+     * @return true if a step was undone, false if the journal is empty.
+     */
+    boolean undo(Board board) {
+        var step = steps.pollLast();
+        if (step == null) {
+            return false;
+        }
+        recordedBytes -= step.length + STEP_OVERHEAD_BYTES;
+        var position = 0;
+        while (position < step.length) {
+            var index = (step[position] & 0xFF) << 24 | (step[position + 1] & 0xFF) << 16
+                    | (step[position + 2] & 0xFF) << 8 | (step[position + 3] & 0xFF);
+            var size = Board.readSize(step, position + 4);
+            var stack = position + 4 + Board.sizeLength(size);
+            board.restoreStack(index, step, stack, size);
+            position = stack + size;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every recorded step.
+     */
+    void clear() {
+        steps.clear();
+        recordedBytes = 0;
+        recording = false;
+    }
+
+    /**
+     * Gets the number of steps that can currently be undone.
+     *
+     * @return the number of recorded steps.
+     */
+    public int size() {
+        return steps.size();
+    }
+
+    /**
+     * Gets the number of bytes held by the recorded steps, including the overhead charged for each of them.
+     *
+     * @return the recorded bytes, compared against the budget.
+     */
+    public long getRecordedBytes() {
+        return recordedBytes;
+    }
+}
@@ -0,0 +1,45 @@
+package fr.esiee.baba.solver;
+
+import fr.esiee.baba.model.Direction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of a search for a level solution.
+ *
+ * @param solved true if a sequence of moves reaching WIN was found.
+ * @param moves the moves of the solution, empty if none was found.
+ * @param statesVisited the number of distinct states reached during the search.
+ * @param exhausted true if every reachable state was visited, false if the search stopped at its state limit.
+ * @param elapsedNanos the duration of the search.
+ */
+public record Solution(boolean solved, List<Direction> moves, long statesVisited, boolean exhausted,
+        long elapsedNanos) {
+
+    public Solution {
+        moves = List.copyOf(Objects.requireNonNull(moves));
+    }
+
+    /**
+     * Gets the search throughput.
+     *
+     * @return the number of states visited per second.
+     */
+    public double statesPerSecond() {
+        return elapsedNanos == 0 ? 0 : statesVisited * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Formats the moves as a string of U, D, L and R letters.
+     *
+     * @return the moves of the solution, one letter per move.
+     */
+    public String movesAsString() {
+        var builder = new StringBuilder(moves.size());
+        for (var move : moves) {
+            builder.append(move.name().charAt(0));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,330 @@
+package fr.esiee.baba.solver;
+
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.model.Property;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless solver playing levels with the real engine: every successor state is obtained by calling
+ * {@link Level#update(Direction, boolean)}, exactly as a player move would, and left with {@link Level#undo()}.
+ * <p>
+ * The search proceeds in rounds. Each round expands a batch of states in parallel on a {@link ForkJoinPool}, and the
+ * workers claim the successors they reach in a concurrent visited set keyed by the compact encoding of the board.
+ * Every successor is claimed with its rank in the round, from the position of its parent in the batch and its move,
+ * and a state keeps the lowest rank claimed for it. Once the round is over, the successors are queued in rank order and
+ * only those holding their state's claim are kept: a state reached from several parents of the batch goes to the first
+ * of them, as with a sequential search, whatever the thread scheduling.
+ * Waiting states only keep that encoding; their level is rebuilt once when they are expanded, and every move is undone
+ * through the level's journal before the next one is played.
+ * In {@link Mode#BFS} mode a round is a whole depth of the search, so the solution found is a shortest one. In
+ * {@link Mode#ASTAR} mode a round takes the most promising states according to the Manhattan distance from the
+ * nearest YOU entity to the nearest WIN entity; rules can change during play, so this estimate is only a guide and the
+ * solution found may not be the shortest.
+ */
+public class Solver {
+    /**
+     * The search strategies of the solver.
+     */
+    public enum Mode {
+        /**
+         * Breadth-first search, finding a shortest solution.
+         */
+        BFS,
+        /**
+         * Best-first search guided by the Manhattan distance to WIN.
+         */
+        ASTAR
+    }
+
+    private static final int SPLIT_THRESHOLD = 8;
+    private static final Direction[] MOVES = Direction.values();
+
+    private final ForkJoinPool pool;
+    private final Mode mode;
+    private final int maxStates;
+    private final int batchSize;
+
+    /**
+     * Constructs a solver.
+     *
+     * @param pool the pool expanding the states.
+     * @param mode the search strategy.
+     * @param maxStates the number of distinct states after which the search gives up.
+     */
+    public Solver(ForkJoinPool pool, Mode mode, int maxStates) {
+        this.pool = Objects.requireNonNull(pool);
+        this.mode = Objects.requireNonNull(mode);
+        if (maxStates <= 0) {
+            throw new IllegalArgumentException("The state limit must be positive: " + maxStates);
+        }
+        this.maxStates = maxStates;
+        this.batchSize = 16 * pool.getParallelism();
+    }
+
+    /**
+     * A reached state: its board, the path leading to it and its priority.
+     *
+     * @param state the key of the state, holding the encoding of its board.
+     * @param path the last move of the path leading to the state, or null for the initial state.
+     * @param depth the number of moves from the initial state.
+     * @param priority the depth plus the estimate of the remaining moves.
+     * @param order the rank of the state in the order of discovery, to break ties.
+     */
+    private record Node(StateKey state, Step path, int depth, int priority, long order) {
+    }
+
+    /**
+     * A move of a path, linked to the previous ones.
+     *
+     * @param previous the previous move, or null for the first one.
+     * @param move the move.
+     */
+    private record Step(Step previous, Direction move) {
+    }
+
+    /**
+     * The visited-set key of a state: the encoding of its board, hashed by its Zobrist hash.
+     *
+     * @param encoding the compact encoding of the board.
+     * @param hash the Zobrist hash of the board.
+     */
+    private record StateKey(byte[] encoding, long hash) {
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof StateKey other && other.hash == hash && Arrays.equals(other.encoding, encoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    /**
+     * Searches a solution of a level from its current state. The level itself is left untouched.
+     *
+     * @param level the level to solve.
+     * @return the outcome of the search.
+     */
+    public Solution solve(Level level) {
+        Objects.requireNonNull(level);
+        var start = System.nanoTime();
+        // Each visited state with the rank of its claim; ranks only grow from one round to the next
+        var visited = new ConcurrentHashMap<StateKey, Long>();
+        var rootKey = keyOf(level);
+        visited.put(rootKey, 0L);
+        var firstRank = 1L;
+        var root = new Node(rootKey, null, 0, mode == Mode.ASTAR ? estimate(level) : 0, 0);
+        var open = new PriorityQueue<Node>(Comparator.comparingInt(Node::priority).thenComparingLong(Node::order));
+        open.add(root);
+        var order = 1L;
+
+        while (!open.isEmpty()) {
+            var batch = takeBatch(open);
+            var results = new Expansion[batch.size()];
+            pool.invoke(new ExpandTask(level, batch, visited, firstRank, results, 0, batch.size()));
+            firstRank += (long) batch.size() * MOVES.length;
+
+            // Successors are queued in rank order, so that the outcome does not depend on thread scheduling: a state
+            // reached from several parents of the batch only stays with the lowest claim
+            for (var result : results) {
+                if (result.winning != null) {
+                    return new Solution(true, pathOf(result.winning), visited.size(), false, System.nanoTime() - start);
+                }
+            }
+            for (var i = 0; i < results.length; i++) {
+                for (var child : results[i].children) {
+                    if (visited.get(child.state()) != child.rank()) {
+                        continue;
+                    }
+                    var depth = batch.get(i).depth() + 1;
+                    var priority = mode == Mode.ASTAR ? depth + child.estimate() : depth;
+                    open.add(new Node(child.state(), child.path(), depth, priority, order++));
+                }
+            }
+            if (visited.size() >= maxStates) {
+                return new Solution(false, List.of(), visited.size(), false, System.nanoTime() - start);
+            }
+        }
+        return new Solution(false, List.of(), visited.size(), true, System.nanoTime() - start);
+    }
+
+    /**
+     * Takes the next states to expand: the whole next depth in BFS mode, the best states in A* mode.
+     *
+     * @param open the states waiting for expansion.
+     * @return the states to expand in this round, in priority order.
+     */
+    private List<Node> takeBatch(PriorityQueue<Node> open) {
+        var batch = new ArrayList<Node>();
+        var first = open.poll();
+        batch.add(first);
+        while (!open.isEmpty()) {
+            var next = open.peek();
+            var sameRound = mode == Mode.BFS ? next.depth() == first.depth() : batch.size() < batchSize;
+            if (!sameRound) {
+                break;
+            }
+            batch.add(open.poll());
+        }
+        return batch;
+    }
+
+    /**
+     * A state reached by expanding another one, claimed for it at the time, though a lower claim may come later in the
+     * round.
+     *
+     * @param state the key of the state.
+     * @param path the last move of the path leading to the state.
+     * @param estimate the estimated number of moves left from the state.
+     * @param rank the rank the state was claimed with.
+     */
+    private record Successor(StateKey state, Step path, int estimate, long rank) {
+    }
+
+    /**
+     * The successors of one state.
+     */
+    private static final class Expansion {
+        private final List<Successor> children = new ArrayList<>(MOVES.length);
+        private Step winning;
+    }
+
+    /**
+     * Expands a range of states, splitting it until the ranges are small enough. Never serialized: the fields are
+     * transient only to satisfy the serial lint of {@link RecursiveAction}.
+     */
+    private final class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Level initial;
+        private final transient List<Node> batch;
+        private final transient ConcurrentHashMap<StateKey, Long> visited;
+        private final long firstRank;
+        private final transient Expansion[] results;
+        private final int from;
+        private final int to;
+
+        ExpandTask(Level initial, List<Node> batch, ConcurrentHashMap<StateKey, Long> visited, long firstRank,
+                Expansion[] results, int from, int to) {
+            this.initial = initial;
+            this.batch = batch;
+            this.visited = visited;
+            this.firstRank = firstRank;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                var middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(initial, batch, visited, firstRank, results, from, middle),
+                        new ExpandTask(initial, batch, visited, firstRank, results, middle, to));
+                return;
+            }
+            for (var i = from; i < to; i++) {
+                results[i] = expand(initial, batch.get(i), visited, firstRank + (long) i * MOVES.length);
+            }
+        }
+    }
+
+    /**
+     * Plays every move from a state and claims the successors where something is still controlled. The state is
+     * decoded once; each move is then undone through the journal of the level before the next one is played.
+     *
+     * @param initial the level being solved, giving the dimensions and name of the boards.
+     * @param node the state to expand.
+     * @param visited the visited states, with the rank of their claim.
+     * @param firstRank the rank of the successor reached by the first move.
+     * @return the successors claimed, in the order of the moves, or the winning path if a move wins.
+     */
+    private Expansion expand(Level initial, Node node, ConcurrentHashMap<StateKey, Long> visited, long firstRank) {
+        var expansion = new Expansion();
+        var parent = decode(initial, node);
+        var isJump = parent.getRules().hasProperty(parent.getYouElements(), Property.JUMP);
+        for (var move = 0; move < MOVES.length; move++) {
+            try {
+                parent.update(MOVES[move], isJump);
+            } catch (RuntimeException e) {
+                // Rules the engine cannot apply, as it would fail for a player; the level may be left half updated
+                parent = decode(initial, node);
+                continue;
+            }
+            var path = new Step(node.path(), MOVES[move]);
+            if (parent.isCompleted()) {
+                expansion.winning = path;
+                return expansion;
+            }
+            // Without YOU nothing can move anymore, so the level cannot be won from there
+            if (!parent.getYouElements().isEmpty()) {
+                var state = keyOf(parent);
+                var rank = firstRank + move;
+                // A claim only goes down, so a successor beaten now is dropped at once
+                if (visited.merge(state, rank, Math::min) == rank) {
+                    expansion.children.add(new Successor(state, path, mode == Mode.ASTAR ? estimate(parent) : 0, rank));
+                }
+            }
+            parent.undo();
+        }
+        return expansion;
+    }
+
+    private static Level decode(Level initial, Node node) {
+        var board = initial.getBoard();
+        return new Level(Board.decode(board.getHeight(), board.getWidth(), node.state().encoding()),
+                initial.getLevelFilePath());
+    }
+
+    private static StateKey keyOf(Level level) {
+        return new StateKey(level.getBoard().encode(), level.stateHash());
+    }
+
+    /**
+     * Estimates the moves left before winning: the Manhattan distance from the nearest YOU entity to the nearest WIN
+     * entity, or 0 when either is missing, since a rule has to change first.
+     *
+     * @param level the level to evaluate.
+     * @return the estimate, in moves.
+     */
+    static int estimate(Level level) {
+        var board = level.getBoard();
+        var rules = level.getRules();
+        var youCells = board.cellsOf(rules.getElementsWithProperty(Property.YOU));
+        var winCells = board.cellsOf(rules.getElementsWithProperty(Property.WIN));
+        if (youCells.length == 0 || winCells.length == 0) {
+            return 0;
+        }
+        var width = board.getWidth();
+        var best = Integer.MAX_VALUE;
+        for (var you : youCells) {
+            for (var win : winCells) {
+                var distance = Math.abs(you / width - win / width) + Math.abs(you % width - win % width);
+                best = Math.min(best, distance);
+            }
+        }
+        return best;
+    }
+
+    private static List<Direction> pathOf(Step step) {
+        var moves = new ArrayList<Direction>();
+        for (var current = step; current != null; current = current.previous()) {
+            moves.add(current.move());
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+}
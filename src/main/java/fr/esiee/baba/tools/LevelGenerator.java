@@ -0,0 +1,233 @@
+package fr.esiee.baba.tools;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Generates large synthetic levels for scale testing, in the text format read by
+ * {@link Game#parseLevel(List, String)}.
+ * <p>
+ * The rules of a generated level are exactly its {@code IS} sentences: the first one is {@code BABA IS YOU}, the second
+ * {@code ROCK IS PUSH}, the third {@code FLAG IS WIN}, and the others join a random noun to a random property other
+ * than YOU. Sentences are kept apart from each other, and the loose words scattered around never touch an {@code IS},
+ * so no other rule can appear before the first move. The YOU entities are therefore exactly the BABA entities, and the
+ * pushable ones the rocks.
+ * <p>
+ * Generation only depends on the settings: the same settings, seed included, always give the same level.
+ */
+public final class LevelGenerator {
+    private static final Element[] SENTENCE_NOUNS = {
+            Element.FLAG, Element.WALL, Element.WATER, Element.SKULL, Element.LAVA, Element.SMILEY };
+    private static final Element[] SENTENCE_PROPERTIES = {
+            Element.WIN, Element.STOP, Element.PUSH, Element.MELT, Element.HOT, Element.DEFEAT, Element.SINK };
+    private static final Element[] LOOSE_WORDS = {
+            Element.BABA, Element.FLAG, Element.WALL, Element.WATER, Element.SKULL, Element.LAVA, Element.ROCK,
+            Element.SMILEY, Element.YOU, Element.WIN, Element.STOP, Element.PUSH, Element.MELT, Element.HOT,
+            Element.DEFEAT, Element.SINK };
+    private static final Element[] OTHER_ENTITIES = {
+            Element.ENTITY_WALL, Element.ENTITY_FLAG, Element.ENTITY_WATER, Element.ENTITY_SKULL,
+            Element.ENTITY_LAVA, Element.ENTITY_SMILEY };
+    private static final int PLACEMENT_ATTEMPTS = 1_000;
+
+    /**
+     * Settings of a generated level.
+     *
+     * @param height the number of rows.
+     * @param width the number of columns.
+     * @param seed the seed of the random choices.
+     * @param wordDensity the share of cells holding a word, sentences included.
+     * @param sentences the number of {@code IS} sentences.
+     * @param youCount the number of BABA entities, which are the YOU entities.
+     * @param entityDensity the share of cells holding an entity, BABA entities included.
+     * @param pushableRatio the share of the entities other than BABA that are pushable rocks.
+     */
+    public record Settings(int height, int width, long seed, double wordDensity, int sentences, int youCount,
+            double entityDensity, double pushableRatio) {
+
+        public Settings {
+            if (height < 3 || width < 3) {
+                throw new IllegalArgumentException("A generated level must be at least 3x3: " + height + "x" + width);
+            }
+            checkRatio("word density", wordDensity);
+            checkRatio("entity density", entityDensity);
+            checkRatio("pushable ratio", pushableRatio);
+            if (sentences < 0 || youCount < 0) {
+                throw new IllegalArgumentException("Counts cannot be negative: " + sentences + ", " + youCount);
+            }
+            if (youCount > 0 && sentences < 1 || pushableRatio > 0 && sentences < 2) {
+                throw new IllegalArgumentException("Not enough sentences for YOU and PUSH: " + sentences);
+            }
+        }
+
+        /**
+         * Settings with the proportions of the bundled levels: a few words, one entity in five cells, a third of
+         * which are rocks, and one YOU entity.
+         *
+         * @param height the number of rows.
+         * @param width the number of columns.
+         * @param seed the seed of the random choices.
+         * @return the settings.
+         */
+        public static Settings of(int height, int width, long seed) {
+            var sentences = Math.max(3, height * width / 2_000);
+            return new Settings(height, width, seed, 0.02, sentences, 1, 0.2, 0.3);
+        }
+
+        private static void checkRatio(String name, double value) {
+            if (!(value >= 0 && value <= 1)) {
+                throw new IllegalArgumentException("The " + name + " must be between 0 and 1: " + value);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final Random random;
+    private final Element[] cells;
+    // Cells no other sentence may use: the sentences and their surroundings
+    private final boolean[] reserved;
+    // Cells next to an IS, where a loose word would complete a sentence
+    private final boolean[] nearOperator;
+
+    private LevelGenerator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed());
+        var size = settings.height() * settings.width();
+        this.cells = new Element[size];
+        Arrays.fill(cells, Element.EMPTY);
+        this.reserved = new boolean[size];
+        this.nearOperator = new boolean[size];
+    }
+
+    /**
+     * Generates a level.
+     *
+     * @param settings the settings of the level.
+     * @return the lines of the level file, one per row.
+     * @throws IllegalArgumentException if the words and entities asked for do not fit in the level.
+     */
+    public static List<String> generate(Settings settings) {
+        var generator = new LevelGenerator(Objects.requireNonNull(settings));
+        generator.placeSentences();
+        generator.scatter();
+        return generator.lines();
+    }
+
+    private void placeSentences() {
+        for (var i = 0; i < settings.sentences(); i++) {
+            var sentence = switch (i) {
+                case 0 -> new Element[] { Element.BABA, Element.IS, Element.YOU };
+                case 1 -> new Element[] { Element.ROCK, Element.IS, Element.PUSH };
+                case 2 -> new Element[] { Element.FLAG, Element.IS, Element.WIN };
+                default -> new Element[] { pick(SENTENCE_NOUNS), Element.IS, pick(SENTENCE_PROPERTIES) };
+            };
+            placeSentence(sentence);
+        }
+    }
+
+    private void placeSentence(Element[] sentence) {
+        var height = settings.height();
+        var width = settings.width();
+        for (var attempt = 0; attempt < PLACEMENT_ATTEMPTS; attempt++) {
+            var vertical = random.nextBoolean();
+            var x = random.nextInt(vertical ? height - 2 : height);
+            var y = random.nextInt(vertical ? width : width - 2);
+            var dx = vertical ? 1 : 0;
+            var dy = vertical ? 0 : 1;
+            if (reserved[x * width + y] || reserved[(x + dx) * width + y + dy]
+                    || reserved[(x + 2 * dx) * width + y + 2 * dy]) {
+                continue;
+            }
+            for (var k = 0; k < sentence.length; k++) {
+                var wx = x + k * dx;
+                var wy = y + k * dy;
+                cells[wx * width + wy] = sentence[k];
+                // Keeps other sentences one cell away, so that no word is read in two sentences
+                markAround(reserved, wx, wy, true);
+                if (sentence[k] == Element.IS) {
+                    markAround(nearOperator, wx, wy, false);
+                }
+            }
+            return;
+        }
+        throw new IllegalArgumentException("No room left for " + settings.sentences() + " sentences");
+    }
+
+    private void markAround(boolean[] marks, int x, int y, boolean diagonals) {
+        var width = settings.width();
+        for (var i = Math.max(0, x - 1); i <= Math.min(settings.height() - 1, x + 1); i++) {
+            for (var j = Math.max(0, y - 1); j <= Math.min(width - 1, y + 1); j++) {
+                if (diagonals || i == x || j == y) {
+                    marks[i * width + j] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scatters the loose words and the entities over the empty cells, visited in a random order.
+     */
+    private void scatter() {
+        var size = cells.length;
+        var words = (int) Math.round(settings.wordDensity() * size);
+        var looseWords = Math.max(0, words - 3 * settings.sentences());
+        var entities = Math.max((int) Math.round(settings.entityDensity() * size), settings.youCount());
+        var rocks = (int) Math.round(settings.pushableRatio() * (entities - settings.youCount()));
+
+        var free = new int[size];
+        var count = 0;
+        for (var index = 0; index < size; index++) {
+            if (cells[index] == Element.EMPTY) {
+                free[count++] = index;
+            }
+        }
+        var placedWords = 0;
+        var placedEntities = 0;
+        // Partial Fisher-Yates shuffle: each step draws the next cell among the ones not visited yet
+        for (var i = 0; i < count && (placedWords < looseWords || placedEntities < entities); i++) {
+            var j = i + random.nextInt(count - i);
+            var index = free[j];
+            free[j] = free[i];
+            if (placedWords < looseWords && !nearOperator[index]) {
+                cells[index] = pick(LOOSE_WORDS);
+                placedWords++;
+            } else if (placedEntities < entities) {
+                if (placedEntities < settings.youCount()) {
+                    cells[index] = Element.ENTITY_BABA;
+                } else if (placedEntities < settings.youCount() + rocks) {
+                    cells[index] = Element.ENTITY_ROCK;
+                } else {
+                    cells[index] = pick(OTHER_ENTITIES);
+                }
+                placedEntities++;
+            }
+        }
+        if (placedWords < looseWords || placedEntities < entities) {
+            throw new IllegalArgumentException("The words and entities do not fit in a " + settings.height() + "x"
+                    + settings.width() + " level");
+        }
+    }
+
+    private List<String> lines() {
+        var width = settings.width();
+        var lines = new ArrayList<String>(settings.height());
+        var line = new StringBuilder(2 * width);
+        for (var x = 0; x < settings.height(); x++) {
+            line.setLength(0);
+            for (var y = 0; y < width; y++) {
+                line.append(Game.elementToString(cells[x * width + y])).append(' ');
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private Element pick(Element[] elements) {
+        return elements[random.nextInt(elements.length)];
+    }
+}
@@ -0,0 +1,209 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import java.nio.ByteBuffer;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Turns the states of the levels played in one session into the frames sent to the client, in the protocol the client
+ * asked for.
+ * <p>
+ * With {@link FrameProtocol#DELTA}, a session starts with a keyframe holding every cell:
+ * <pre>
+ * {"type":"key","seq":1,"height":18,"width":22,"stacks":[["EMPTY"],["EMPTY","ENTITY_WALL"],...]}
+ * </pre>
+ * Each following frame only holds the cells changed since the previous one, by index in row-major order:
+ * <pre>
+ * {"type":"delta","seq":2,"cells":[37,38],"stacks":[["EMPTY"],["EMPTY","ENTITY_BABA"]]}
+ * </pre>
+ * A keyframe is sent again when the board changes (next level, restart), every {@value #KEYFRAME_INTERVAL} frames,
+ * and when the client asks for one after missing a frame.
+ * <p>
+ * {@link FrameProtocol#BINARY} sends the same frames as binary messages, big-endian, where each stack is its height
+ * (one byte below 128, as in {@link Board#writeSize}) followed by the ordinals of its elements, bottom first:
+ * <pre>
+ * keyframe: 1 (1 byte) | seq (4 bytes) | height (2 bytes) | width (2 bytes) | every stack, in row-major order
+ * delta:    2 (1 byte) | seq (4 bytes) | cell count (4 bytes) | for each changed cell: index (4 bytes), stack
+ * </pre>
+ * The ordinals are resolved with the element names sent first, as {@code {"type":"elements","names":[...]}}.
+ * <p>
+ * Snapshots are taken by the thread running the game and encoded by the thread sending the frames, possibly after
+ * being merged (see {@link FrameSender}): each side keeps to its own state.
+ */
+final class FrameEncoder {
+    /**
+     * Number of frames after which a keyframe is sent even if the client did not ask for one.
+     */
+    static final int KEYFRAME_INTERVAL = 100;
+
+    private static final byte KEYFRAME = 1;
+    private static final byte DELTA = 2;
+    private static final String[] NAMES = new String[Element.values().length];
+
+    static {
+        for (var element : Element.values()) {
+            NAMES[element.ordinal()] = '"' + element.name() + '"';
+        }
+    }
+
+    private final FrameProtocol protocol;
+    private final GridJsonEncoder gridJson = new GridJsonEncoder();
+    private Board lastBoard;
+    private long sequence;
+    private int sinceKeyframe;
+    private boolean keyframeRequested;
+
+    /**
+     * Constructs the encoder of a session.
+     *
+     * @param protocol the protocol of the client.
+     */
+    FrameEncoder(FrameProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    FrameProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Makes the next frame a keyframe, for a client that lost track of the sequence.
+     */
+    void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * Encodes the frame showing the current state of a level, right away.
+     *
+     * @param level the level to show.
+     * @return the message to send.
+     */
+    WebSocketMessage<?> encode(Level level) {
+        return encode(snapshot(level));
+    }
+
+    /**
+     * Encodes the frame of a snapshot, numbered after the previous frame encoded.
+     *
+     * @param snapshot the snapshot to send, as taken by {@link #snapshot(Level)} or merged from several of them.
+     * @return the message to send.
+     */
+    WebSocketMessage<?> encode(GridSnapshot snapshot) {
+        sequence++;
+        return switch (protocol) {
+            case JSON -> new TextMessage(gridJson.encode(snapshot));
+            case DELTA -> new TextMessage(toJson(snapshot, sequence));
+            case BINARY -> new BinaryMessage(toBinary(snapshot, sequence));
+        };
+    }
+
+    /**
+     * Gets the message a client receives before the first frame, if its protocol has one: the names of the elements,
+     * in ordinal order, for the binary protocol.
+     *
+     * @return the message, or null if the protocol starts with the first frame.
+     */
+    WebSocketMessage<?> greeting() {
+        if (protocol != FrameProtocol.BINARY) {
+            return null;
+        }
+        return new TextMessage("{\"type\":\"elements\",\"names\":[" + String.join(",", NAMES) + "]}");
+    }
+
+    /**
+     * Takes the snapshot of the next frame: a keyframe when one is due or when every frame holds the whole grid, the
+     * changed cells otherwise.
+     *
+     * @param level the level to show.
+     * @return the snapshot.
+     */
+    GridSnapshot snapshot(Level level) {
+        var board = level.getBoard();
+        var changed = board.takeViewChanges();
+        if (protocol == FrameProtocol.JSON || board != lastBoard || keyframeRequested || sinceKeyframe >= KEYFRAME_INTERVAL) {
+            lastBoard = board;
+            keyframeRequested = false;
+            sinceKeyframe = 0;
+            return GridSnapshot.keyframe(board);
+        }
+        sinceKeyframe++;
+        return GridSnapshot.delta(board, changed);
+    }
+
+    /**
+     * Writes a snapshot in the JSON form of the {@link FrameProtocol#DELTA} protocol.
+     *
+     * @param snapshot the snapshot to write.
+     * @param sequence the number of the frame.
+     * @return the JSON text of the frame.
+     */
+    static String toJson(GridSnapshot snapshot, long sequence) {
+        var json = new StringBuilder(64 + snapshot.cells().length * 24);
+        json.append("{\"type\":\"").append(snapshot.keyframe() ? "key" : "delta")
+                .append("\",\"seq\":").append(sequence);
+        if (snapshot.keyframe()) {
+            json.append(",\"height\":").append(snapshot.height()).append(",\"width\":").append(snapshot.width());
+        } else {
+            json.append(",\"cells\":[");
+            for (var i = 0; i < snapshot.cells().length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(snapshot.cells()[i]);
+            }
+            json.append(']');
+        }
+        json.append(",\"stacks\":[");
+        var position = 0;
+        for (var i = 0; i < snapshot.cells().length; i++) {
+            json.append(i > 0 ? ",[" : "[");
+            for (var k = 0; k < snapshot.sizes()[i]; k++) {
+                if (k > 0) {
+                    json.append(',');
+                }
+                json.append(NAMES[snapshot.ordinals()[position++]]);
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Writes a snapshot in the binary form of the {@link FrameProtocol#BINARY} protocol.
+     *
+     * @param snapshot the snapshot to write.
+     * @param sequence the number of the frame.
+     * @return the bytes of the frame.
+     */
+    static byte[] toBinary(GridSnapshot snapshot, long sequence) {
+        var cells = snapshot.cells();
+        var headerBytes = snapshot.keyframe() ? 9 : 9 + 4 * cells.length;
+        var sizeBytes = 0;
+        for (var size : snapshot.sizes()) {
+            sizeBytes += Board.sizeLength(size);
+        }
+        var buffer = ByteBuffer.allocate(headerBytes + sizeBytes + snapshot.ordinals().length);
+        buffer.put(snapshot.keyframe() ? KEYFRAME : DELTA).putInt((int) sequence);
+        if (snapshot.keyframe()) {
+            buffer.putShort((short) snapshot.height()).putShort((short) snapshot.width());
+        } else {
+            buffer.putInt(cells.length);
+        }
+        var position = 0;
+        for (var i = 0; i < cells.length; i++) {
+            if (!snapshot.keyframe()) {
+                buffer.putInt(cells[i]);
+            }
+            var size = snapshot.sizes()[i];
+            var length = Board.writeSize(buffer.array(), buffer.position(), size);
+            buffer.position(length).put(snapshot.ordinals(), position, size);
+            position += size;
+        }
+        return buffer.array();
+    }
+}
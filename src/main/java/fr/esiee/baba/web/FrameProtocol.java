@@ -0,0 +1,81 @@
+package fr.esiee.baba.web;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Formats of the frames sent to a client, chosen when it connects with the {@code protocol} query parameter of the
+ * WebSocket address, as in {@code /game-ws?protocol=delta}.
+ */
+enum FrameProtocol {
+    /**
+     * The whole grid in every frame, as a JSON array of rows of cells: the original format, used by default.
+     */
+    JSON,
+    /**
+     * A JSON keyframe holding every cell, then JSON deltas holding only the changed cells, numbered in sequence.
+     */
+    DELTA,
+    /**
+     * The keyframes and deltas of {@link #DELTA} as binary messages of element ordinals, after a text message naming
+     * the elements; the inputs of the client are single opcode bytes (see {@link #commandOf(ByteBuffer)}).
+     */
+    BINARY;
+
+    // Commands of the binary protocol, indexed by opcode
+    private static final String[] OPCODES = { null, "UP", "DOWN", "LEFT", "RIGHT", "UNDO", "RESTART", "RESYNC" };
+    // Opcode of a sequence of moves, followed by the opcodes of the moves
+    private static final byte MOVES = 8;
+    private static final char[] MOVE_LETTERS = { 0, 'U', 'D', 'L', 'R' };
+
+    /**
+     * Reads the protocol asked for in a WebSocket address.
+     *
+     * @param uri the address the client connected to, or null.
+     * @return the protocol of the {@code protocol} parameter, or {@link #JSON} if it is missing or unknown.
+     */
+    static FrameProtocol fromUri(URI uri) {
+        var query = uri == null ? null : uri.getQuery();
+        if (query == null) {
+            return JSON;
+        }
+        for (var parameter : query.split("&")) {
+            if (parameter.startsWith("protocol=")) {
+                try {
+                    return valueOf(parameter.substring("protocol=".length()).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    return JSON;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Reads an input of the binary protocol: a single byte, 1 to 4 for the moves UP, DOWN, LEFT and RIGHT, 5 for UNDO,
+     * 6 for RESTART and 7 for RESYNC; or 8 followed by the opcodes of several moves, read as {@code MOVES:UUDLRR}.
+     *
+     * @param payload the content of the binary message.
+     * @return the command of the message, as sent by text clients, or null if it is not a known command.
+     */
+    static String commandOf(ByteBuffer payload) {
+        if (payload.remaining() == 0) {
+            return null;
+        }
+        var opcode = payload.get(payload.position());
+        if (opcode == MOVES) {
+            // Moves that are not valid are kept, as '?', for the command to be rejected with a reply
+            var command = new StringBuilder("MOVES:");
+            for (var i = payload.position() + 1; i < payload.limit(); i++) {
+                var move = payload.get(i);
+                command.append(move > 0 && move < MOVE_LETTERS.length ? MOVE_LETTERS[move] : '?');
+            }
+            return command.toString();
+        }
+        if (payload.remaining() != 1) {
+            return null;
+        }
+        return opcode > 0 && opcode < OPCODES.length ? OPCODES[opcode] : null;
+    }
+}
@@ -0,0 +1,204 @@
+package fr.esiee.baba.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbound queue of one session: sends its frames on a thread of the sending executor, so that the thread running the
+ * game never waits for the network.
+ * <p>
+ * The queue holds a single frame. A frame rendered while the previous one is still waiting is merged into it (see
+ * {@link GridSnapshot#merge}), so a client falling behind gets the latest state in one frame instead of a backlog. The
+ * frames are encoded when they are taken, and numbered then, so that merged frames leave no gap in the sequence.
+ * Replies to {@code MOVES} commands are sent right after the frame queued with them, or alone if there is none. They
+ * are never dropped: past {@value #MAX_REPLIES} replies waiting, the newest ones are merged (see
+ * {@link MovesReply#merge}), so the queue stays bounded. The greeting of the session, if any, is sent before its
+ * first frame.
+ */
+final class FrameSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameSender.class);
+    static final int MAX_REPLIES = 64;
+
+    private final WebSocketSession session;
+    private final FrameEncoder frames;
+    private final Executor executor;
+    private final FrameStatistics statistics;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<MovesReply> replies = new ArrayList<>();
+    private WebSocketMessage<?> greeting;
+    private GridSnapshot pending;
+    private boolean draining;
+    private boolean closed;
+
+    /**
+     * Constructs the sender of a session.
+     *
+     * @param session the session to send the frames to.
+     * @param frames the encoder of the session.
+     * @param executor the executor running the sends.
+     * @param statistics the counters to update.
+     */
+    FrameSender(WebSocketSession session, FrameEncoder frames, Executor executor, FrameStatistics statistics) {
+        this.session = session;
+        this.frames = frames;
+        this.executor = executor;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Queues the first message of the session, to send before any frame. Never blocks on the network.
+     *
+     * @param message the greeting, such as the names of the elements for the binary protocol.
+     */
+    void greet(WebSocketMessage<?> message) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            greeting = message;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Queues a frame, merged with the frame still waiting if there is one. Never blocks on the network.
+     *
+     * @param snapshot the snapshot of the frame, taken by the encoder of the session.
+     */
+    void submit(GridSnapshot snapshot) {
+        submit(snapshot, List.of());
+    }
+
+    /**
+     * Queues a frame, merged with the frame still waiting if there is one, then replies to send right after it. Never
+     * blocks on the network.
+     *
+     * @param snapshot the snapshot of the frame, taken by the encoder of the session, or null to queue the replies
+     *                 alone, after the frame waiting if there is one.
+     * @param moveReplies the replies to send after the frame, in order.
+     */
+    void submit(GridSnapshot snapshot, List<MovesReply> moveReplies) {
+        if (snapshot == null && moveReplies.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (snapshot != null && pending == null) {
+                pending = snapshot;
+                statistics.framePending();
+            } else if (snapshot != null) {
+                pending = GridSnapshot.merge(pending, snapshot);
+                statistics.frameDropped();
+            }
+            for (var reply : moveReplies) {
+                if (replies.size() < MAX_REPLIES) {
+                    replies.add(reply);
+                } else {
+                    replies.add(MovesReply.merge(replies.removeLast(), reply));
+                }
+            }
+            if (draining) {
+                return;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Drops the frame still waiting, if any, and ignores the following ones.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            if (pending != null) {
+                pending = null;
+                statistics.frameTaken();
+            }
+            replies.clear();
+            greeting = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> first;
+            GridSnapshot snapshot;
+            List<MovesReply> taken;
+            lock.lock();
+            try {
+                first = greeting;
+                snapshot = pending;
+                if (first == null && snapshot == null && replies.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                greeting = null;
+                if (snapshot != null) {
+                    pending = null;
+                    statistics.frameTaken();
+                }
+                taken = replies.isEmpty() ? List.of() : List.copyOf(replies);
+                replies.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (first != null) {
+                send(first);
+            }
+            if (snapshot != null) {
+                send(snapshot);
+            }
+            for (var reply : taken) {
+                send(reply.toMessage());
+            }
+        }
+    }
+
+    private void send(WebSocketMessage<?> message) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(message);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to send message to client - Session: {}", session.getId(), e);
+        }
+    }
+
+    private void send(GridSnapshot snapshot) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(frames.encode(snapshot));
+                statistics.frameSent();
+                logger.debug("Sent game state to client - Session: {}", session.getId());
+            }
+        } catch (IOException | RuntimeException e) {
+            statistics.sendFailed();
+            logger.error("Failed to send game state to client - Session: {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package fr.esiee.baba.web;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the frames sent to the clients, shared by every session and published by {@link StatsController}.
+ * <p>
+ * A frame is pending from the time it is rendered until its sender takes it; a pending frame replaced by a newer one
+ * before being taken (see {@link FrameSender}) counts as dropped.
+ */
+@Component
+public class FrameStatistics {
+
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    private final LongAdder sentFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+
+    void framePending() {
+        pendingFrames.incrementAndGet();
+    }
+
+    void frameTaken() {
+        pendingFrames.decrementAndGet();
+    }
+
+    void frameSent() {
+        sentFrames.increment();
+    }
+
+    void frameDropped() {
+        droppedFrames.increment();
+    }
+
+    void sendFailed() {
+        failedSends.increment();
+    }
+
+    /**
+     * Gets the number of frames waiting to be sent, at most one per session.
+     *
+     * @return the current depth of the outbound queues, all sessions together.
+     */
+    public int getPendingFrames() {
+        return pendingFrames.get();
+    }
+
+    public long getSentFrames() {
+        return sentFrames.sum();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    public long getFailedSends() {
+        return failedSends.sum();
+    }
+}
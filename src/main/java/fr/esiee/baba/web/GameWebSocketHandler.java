@@ -2,147 +2,194 @@ package fr.esiee.baba.web;
 
 import fr.esiee.baba.controller.Game;
 import fr.esiee.baba.controller.Game.GameAction;
-import fr.esiee.baba.core.Renderer;
 import fr.esiee.baba.model.Level;
-import fr.esiee.baba.model.Cellule;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Component
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends AbstractWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
+    private static final String MOVES_PREFIX = "MOVES:";
+    // Longest sequence of moves accepted in one command
+    private static final int MAX_MOVES = 1024;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
 
-    @Autowired
-    private ResourcePatternResolver resourceResolver;
+    private final LevelCatalog levelCatalog;
+    private final FrameStatistics frameStatistics;
+    private final boolean virtualThreads;
+    // Runs the games, each session through its mailbox
+    private final ExecutorService gameExecutor;
+    // Sends the frames, so that a slow client never holds up the thread running its game
+    private final ExecutorService frameSenders;
+
+    /**
+     * Constructs the handler.
+     *
+     * @param levelCatalog the levels every session starts from.
+     * @param frameStatistics the counters of the frames sent.
+     * @param virtualThreads true to run the games and the sends on virtual threads, as Tomcat does with the same
+     *                       property; false for pools of platform threads.
+     */
+    public GameWebSocketHandler(LevelCatalog levelCatalog, FrameStatistics frameStatistics,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.levelCatalog = levelCatalog;
+        this.frameStatistics = frameStatistics;
+        this.virtualThreads = virtualThreads;
+        if (virtualThreads) {
+            gameExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-", 0).factory());
+            frameSenders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("frame-sender-", 0).factory());
+        } else {
+            // The game work is computation: one thread per core is enough
+            gameExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    Thread.ofPlatform().name("game-", 0).daemon().factory());
+            // A send may wait for a slow client, so the pool grows with the clients being sent to
+            frameSenders = Executors.newCachedThreadPool(
+                    Thread.ofPlatform().name("frame-sender-", 0).daemon().factory());
+        }
+        logger.info("Games and frame sends run on {} threads", virtualThreads ? "virtual" : "platform");
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         logger.info("WebSocket connection established - Session ID: {}", session.getId());
 
-        // Create a Renderer specific to this session
-        Renderer sessionRenderer = level -> {
-            try {
-                if (session.isOpen()) {
-                    String json = objectMapper.writeValueAsString(level.getGrid());
-                    session.sendMessage(new TextMessage(json));
-                    logger.debug("Sent game state to client - Session: {}", session.getId());
-                }
-            } catch (IOException e) {
-                logger.error("Failed to send game state to client - Session: {}", session.getId(), e);
-            }
-        };
-
-        // Load levels from classpath
-        List<Level> levels = new ArrayList<>();
-        List<LevelResource> levelResources = new ArrayList<>();
-
-        try {
-            logger.debug("Loading levels from classpath...");
-
-            // Try text/ directory first (primary location)
-            Resource[] resources = resourceResolver.getResources("classpath:text/*.txt");
-
-            // Fallback to static/text/ if nothing found
-            if (resources == null || resources.length == 0) {
-                logger.debug("No levels found in classpath:text/, trying classpath:static/text/");
-                resources = resourceResolver.getResources("classpath:static/text/*.txt");
-            }
-
-            if (resources != null && resources.length > 0) {
-                logger.info("Found {} level files", resources.length);
+        // The frame format is negotiated once, from the address the client connected to
+        FrameEncoder frames = new FrameEncoder(FrameProtocol.fromUri(session.getUri()));
+        GameSession gameSession = new GameSession(session, frames,
+                new FrameSender(session, frames, frameSenders, frameStatistics), gameExecutor);
+        logger.debug("Session {} uses the {} protocol", session.getId(), frames.getProtocol());
+        sessions.put(session.getId(), gameSession);
 
-                // Sort resources to ensure level order
-                Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+        // The game starts in the mailbox of the session, before any command the client sends
+        gameSession.mailbox.post(() -> startGame(gameSession));
+    }
 
-                for (Resource res : resources) {
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(res.getInputStream()))) {
-                        List<String> lines = reader.lines().toList();
-                        // Store original level data for restart functionality
-                        levelResources.add(new LevelResource(res.getFilename(), new ArrayList<>(lines)));
+    private void startGame(GameSession gameSession) {
+        WebSocketSession session = gameSession.session;
+        FrameEncoder frames = gameSession.frames;
 
-                        Level level = Game.parseLevel(lines, res.getFilename());
-                        levels.add(level);
-                        logger.debug("Loaded level: {}", res.getFilename());
-                    } catch (Exception e) {
-                        logger.error("Failed to parse level file: {}", res.getFilename(), e);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Critical error loading levels from classpath", e);
-        }
+        // Copy the pre-parsed levels from the shared catalog
+        List<Level> levels = levelCatalog.newLevels();
 
         if (levels.isEmpty()) {
             logger.error("CRITICAL: No levels loaded! Client will see black screen.");
-            // Send error state to client
-            try {
-                Map<String, String> errorResponse = new HashMap<>();
-                errorResponse.put("error", "No game levels found on server");
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(errorResponse)));
-            } catch (IOException e) {
-                logger.error("Failed to send error message to client", e);
-            }
-            session.close();
+            // Send error state to client, from a sending thread like the frames: the game threads never wait on I/O
+            frameSenders.execute(() -> sendErrorAndClose(session, "No game levels found on server"));
             return;
         }
 
         logger.info("Successfully loaded {} levels for session {}", levels.size(), session.getId());
 
-        Game game = new Game(levels, sessionRenderer);
-        GameSession gameSession = new GameSession(game, session, levelResources);
-        sessions.put(session.getId(), gameSession);
+        // The binary protocol names the elements before the first frame
+        WebSocketMessage<?> greeting = frames.greeting();
+        if (greeting != null) {
+            gameSession.sender.greet(greeting);
+        }
+
+        Game game = new Game(levels, gameSession::render);
+        gameSession.game = game;
 
         logger.info("Starting game for session: {}", session.getId());
         game.start();
     }
 
+    private void sendErrorAndClose(WebSocketSession session, String error) {
+        try {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", error);
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(errorResponse)));
+        } catch (IOException e) {
+            logger.error("Failed to send error message to client", e);
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            logger.error("Failed to close session: {}", session.getId(), e);
+        }
+    }
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        handleCommand(session, message.getPayload());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        // Clients of the binary protocol send each command as a single opcode byte
+        String command = FrameProtocol.commandOf(message.getPayload());
+        if (command == null) {
+            logger.warn("Unknown opcode received from session: {}", session.getId());
+            return;
+        }
+        handleCommand(session, command);
+    }
+
+    private void handleCommand(WebSocketSession session, String payload) {
         GameSession gameSession = sessions.get(session.getId());
         if (gameSession == null) {
             logger.warn("Received message for unknown session: {}", session.getId());
             return;
         }
 
-        String payload = message.getPayload();
         logger.debug("Received action from client - Session: {}, Action: {}", session.getId(), payload);
 
+        // Only the mailbox of the session touches its game: the I/O thread just queues the command
+        if (!gameSession.mailbox.post(() -> applyCommand(gameSession, session, payload))) {
+            logger.warn("Dropped command {} from session {}: mailbox full or closed", payload, session.getId());
+        }
+    }
+
+    private void applyCommand(GameSession gameSession, WebSocketSession session, String payload) {
+        if (gameSession.game == null) {
+            // The game could not start
+            return;
+        }
+
         // Handle RESTART specially - reload the current level
         if ("RESTART".equalsIgnoreCase(payload)) {
             handleRestart(gameSession, session);
             return;
         }
 
-        // Handle UNDO specially - restore previous state
+        // Handle UNDO specially - revert the last move of the current level
         if ("UNDO".equalsIgnoreCase(payload)) {
             handleUndo(gameSession, session);
             return;
         }
 
-        // For movement commands, save state before executing
-        boolean isMovement = false;
+        // Handle RESYNC - the client missed a delta frame and needs a keyframe
+        if ("RESYNC".equalsIgnoreCase(payload)) {
+            handleResync(gameSession, session);
+            return;
+        }
+
+        // Handle MOVES:UUDLRR - a sequence of moves answered with its final state only
+        if (payload.regionMatches(true, 0, MOVES_PREFIX, 0, MOVES_PREFIX.length())) {
+            handleMoves(gameSession, session, payload.substring(MOVES_PREFIX.length()));
+            return;
+        }
+
+        // Movement commands are recorded for UNDO by the level itself
         try {
             GameAction action = GameAction.valueOf("MOVE_" + payload.toUpperCase());
-            isMovement = true;
-            // Save current state before movement
-            saveStateForUndo(gameSession);
             gameSession.game.handleAction(action);
         } catch (IllegalArgumentException e) {
             try {
@@ -155,61 +202,22 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void saveStateForUndo(GameSession gameSession) {
-        try {
-            // Get current level from game
-            Level currentLevel = gameSession.game.getCurrentLevel();
-            if (currentLevel != null) {
-                // Save grid state
-                List<List<Cellule>> gridSnapshot = currentLevel.copyGrid();
-                gameSession.undoHistory.addLast(gridSnapshot);
-
-                // Limit history size
-                if (gameSession.undoHistory.size() > GameSession.MAX_UNDO_HISTORY) {
-                    gameSession.undoHistory.removeFirst();
-                }
-
-                logger.debug("Saved state for UNDO (history size: {})", gameSession.undoHistory.size());
-            }
-        } catch (Exception e) {
-            logger.error("Failed to save state for UNDO", e);
-        }
-    }
-
     private void handleUndo(GameSession gameSession, WebSocketSession session) {
         logger.info("Handling UNDO request for session: {}", session.getId());
 
         try {
-            if (gameSession.undoHistory.isEmpty()) {
-                logger.debug("No UNDO history available for session: {}", session.getId());
-                return;
-            }
-
-            // Get the last saved state
-            List<List<Cellule>> previousState = gameSession.undoHistory.removeLast();
-
-            // Restore the state to current level
+            // Revert the cells changed by the last move of the current level
             Level currentLevel = gameSession.game.getCurrentLevel();
             if (currentLevel != null) {
-                currentLevel.restoreGrid(previousState);
-
-                // Create renderer to send updated state to client
-                Renderer sessionRenderer = level -> {
-                    try {
-                        if (session.isOpen()) {
-                            String json = objectMapper.writeValueAsString(level.getGrid());
-                            session.sendMessage(new TextMessage(json));
-                            logger.debug("Sent game state after UNDO - Session: {}", session.getId());
-                        }
-                    } catch (IOException e) {
-                        logger.error("Failed to send game state after UNDO - Session: {}", session.getId(), e);
-                    }
-                };
+                if (!currentLevel.undo()) {
+                    logger.debug("No UNDO history available for session: {}", session.getId());
+                    return;
+                }
 
                 // Render the restored state
-                sessionRenderer.render(currentLevel);
+                gameSession.render(currentLevel);
 
-                logger.info("UNDO completed (history size: {})", gameSession.undoHistory.size());
+                logger.info("UNDO completed (history size: {})", currentLevel.getUndoDepth());
             }
         } catch (Exception e) {
             logger.error("Failed to undo action for session: {}", session.getId(), e);
@@ -221,37 +229,16 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
         try {
             // Get current level index from game (we need to add a getter for this)
-            // For now, we'll reload all levels and restart the game
-            List<Level> freshLevels = new ArrayList<>();
-
-            for (LevelResource levelRes : gameSession.levelResources) {
-                Level level = Game.parseLevel(levelRes.lines, levelRes.filename);
-                freshLevels.add(level);
-            }
+            // For now, we'll take fresh copies of all levels and restart the game
+            List<Level> freshLevels = levelCatalog.newLevels();
 
             logger.info("Reloaded {} levels for restart", freshLevels.size());
 
-            // Create new renderer
-            Renderer sessionRenderer = level -> {
-                try {
-                    if (session.isOpen()) {
-                        String json = objectMapper.writeValueAsString(level.getGrid());
-                        session.sendMessage(new TextMessage(json));
-                        logger.debug("Sent game state to client - Session: {}", session.getId());
-                    }
-                } catch (IOException e) {
-                    logger.error("Failed to send game state to client - Session: {}", session.getId(), e);
-                }
-            };
-
-            // Create new game with fresh levels
-            Game newGame = new Game(freshLevels, sessionRenderer);
+            // Create new game with fresh levels; their boards are new, so the next frame is a keyframe
+            Game newGame = new Game(freshLevels, gameSession::render);
             gameSession.game = newGame;
 
-            // Clear UNDO history on restart
-            gameSession.undoHistory.clear();
-
-            // Start the game (which renders the initial level)
+            // Start the game (which renders the initial level); fresh levels come with an empty UNDO history
             newGame.start();
 
             logger.info("Game restarted successfully for session: {} (UNDO history cleared)", session.getId());
@@ -261,34 +248,125 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void handleMoves(GameSession gameSession, WebSocketSession session, String script) {
+        // Every command is answered, rejected or not, so that the client never waits for moves that will not come
+        if (script.isEmpty() || script.length() > MAX_MOVES) {
+            logger.warn("Rejected {} moves from session: {}", script.length(), session.getId());
+            gameSession.reply(MovesReply.rejected(script.length(),
+                    script.isEmpty() ? "no moves" : "more than " + MAX_MOVES + " moves"));
+            return;
+        }
+        List<GameAction> moves = new ArrayList<>(script.length());
+        for (char move : script.toUpperCase().toCharArray()) {
+            GameAction action = switch (move) {
+                case 'U' -> GameAction.MOVE_UP;
+                case 'D' -> GameAction.MOVE_DOWN;
+                case 'L' -> GameAction.MOVE_LEFT;
+                case 'R' -> GameAction.MOVE_RIGHT;
+                default -> null;
+            };
+            if (action == null) {
+                logger.warn("Unknown move {} received from session: {}", move, session.getId());
+                gameSession.reply(MovesReply.rejected(script.length(), "unknown move"));
+                return;
+            }
+            moves.add(action);
+        }
+
+        // The moves render as they go, but only the final state is sent, followed by the number of moves played;
+        // once the last level is completed there is no state left to send, only the reply
+        int played = gameSession.game.handleMoves(moves);
+        Level currentLevel = gameSession.game.getCurrentLevel();
+        if (currentLevel != null) {
+            gameSession.render(currentLevel);
+        }
+        gameSession.reply(MovesReply.played(moves.size(), played));
+        logger.debug("Played {} of {} moves for session: {}", played, moves.size(), session.getId());
+    }
+
+    private void handleResync(GameSession gameSession, WebSocketSession session) {
+        logger.debug("Handling RESYNC request for session: {}", session.getId());
+        gameSession.frames.requestKeyframe();
+        Level currentLevel = gameSession.game.getCurrentLevel();
+        if (currentLevel != null) {
+            gameSession.render(currentLevel);
+        }
+    }
+
+    /**
+     * Gets the number of sessions playing.
+     *
+     * @return the number of open sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @PreDestroy
+    public void stop() {
+        gameExecutor.shutdown();
+        frameSenders.shutdown();
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
-        sessions.remove(session.getId());
+        GameSession gameSession = sessions.remove(session.getId());
+        if (gameSession != null) {
+            gameSession.mailbox.close();
+            gameSession.sender.close();
+        }
         logger.info("WebSocket connection closed - Session: {}, Status: {}", session.getId(), status);
     }
 
     private static class GameSession {
+        // Only used from the mailbox of the session
         Game game;
-        WebSocketSession session;
-        List<LevelResource> levelResources; // Store original level data for restart
-        Deque<List<List<Cellule>>> undoHistory; // UNDO history (max 50 states)
-        static final int MAX_UNDO_HISTORY = 50;
-
-        public GameSession(Game game, WebSocketSession session, List<LevelResource> levelResources) {
-            this.game = game;
+        private Level levelToRender;
+        // Replies sent after the next frame, one per MOVES command
+        private final List<MovesReply> replies = new ArrayList<>();
+        final WebSocketSession session;
+        final FrameEncoder frames;
+        final FrameSender sender;
+        final SessionMailbox mailbox;
+
+        public GameSession(WebSocketSession session, FrameEncoder frames, FrameSender sender, Executor gameExecutor) {
             this.session = session;
-            this.levelResources = levelResources;
-            this.undoHistory = new ArrayDeque<>();
+            this.frames = frames;
+            this.sender = sender;
+            this.mailbox = new SessionMailbox(session.getId(), gameExecutor, this::flush);
+        }
+
+        /**
+         * Shows a level to the client once the commands waiting in the mailbox have run: a burst of moves (held arrow
+         * key, fast typing) gives one frame of the final state, each move still being recorded for UNDO by the level.
+         */
+        void render(Level level) {
+            levelToRender = level;
         }
-    }
 
-    private static class LevelResource {
-        String filename;
-        List<String> lines;
+        /**
+         * Answers a MOVES command once the commands waiting in the mailbox have run, after the frame of their final
+         * state.
+         */
+        void reply(MovesReply reply) {
+            replies.add(reply);
+        }
 
-        public LevelResource(String filename, List<String> lines) {
-            this.filename = filename;
-            this.lines = lines;
+        /**
+         * Queues the frame of the level rendered last, if any, and the replies waiting. The state of the level is
+         * captured right away; the frame is encoded and sent by the sender of the session.
+         */
+        private void flush() {
+            if (levelToRender == null && replies.isEmpty()) {
+                return;
+            }
+            sender.submit(levelToRender != null ? frames.snapshot(levelToRender) : null, List.copyOf(replies));
+            levelToRender = null;
+            replies.clear();
         }
     }
 }
@@ -0,0 +1,142 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Element;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes whole grids in the JSON form of the {@link FrameProtocol#JSON} protocol, byte for byte what Jackson writes for
+ * {@code List<List<Cellule>>}:
+ * <pre>
+ * [[{"elements":["EMPTY","BABA"],"property":null,"empty":false,"noun":"BABA"},...],...]
+ * </pre>
+ * The cells are read from a snapshot of the board, without building {@link fr.esiee.baba.model.Cellule} objects nor
+ * going through reflection: the text of every element, and of the property and noun it gives to its cell, is computed once,
+ * and each frame is written into a buffer kept from one frame to the next. An encoder belongs to one session.
+ */
+public final class GridJsonEncoder {
+    private static final byte[][] NAMES = new byte[Element.values().length][];
+    private static final byte[][] PROPERTIES = new byte[Element.values().length][];
+    private static final byte[][] NOUNS = new byte[Element.values().length][];
+    private static final byte[] CELL_START = ascii("{\"elements\":[");
+    private static final byte[] PROPERTY = ascii("],\"property\":");
+    private static final byte[] EMPTY = ascii(",\"empty\":");
+    private static final byte[] NOUN = ascii(",\"noun\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final int MAX_TOKEN;
+
+    static {
+        var longest = 0;
+        for (var element : Element.values()) {
+            var word = element.getWord();
+            NAMES[element.ordinal()] = quoted(element.name());
+            PROPERTIES[element.ordinal()] = word == null || word.getProperty() == null ? null
+                    : quoted(word.getProperty().name());
+            NOUNS[element.ordinal()] = word == null || word.getNoun() == null ? null : quoted(word.getNoun().name());
+            longest = Math.max(longest, NAMES[element.ordinal()].length);
+        }
+        MAX_TOKEN = longest;
+    }
+
+    private byte[] buffer = new byte[8192];
+    private int length;
+
+    /**
+     * Writes the grid of a board.
+     *
+     * @param board the board to write.
+     * @return the UTF-8 JSON text of the grid, in a new array of its exact length.
+     */
+    public byte[] encode(Board board) {
+        return encode(GridSnapshot.keyframe(board));
+    }
+
+    /**
+     * Writes the grid pictured by a keyframe.
+     *
+     * @param keyframe the snapshot of every cell of the board.
+     * @return the UTF-8 JSON text of the grid, in a new array of its exact length.
+     */
+    byte[] encode(GridSnapshot keyframe) {
+        length = 0;
+        var cell = 0;
+        var position = 0;
+        ensure(2);
+        buffer[length++] = '[';
+        for (var x = 0; x < keyframe.height(); x++) {
+            ensure(2);
+            if (x > 0) {
+                buffer[length++] = ',';
+            }
+            buffer[length++] = '[';
+            for (var y = 0; y < keyframe.width(); y++) {
+                if (y > 0) {
+                    ensure(1);
+                    buffer[length++] = ',';
+                }
+                var size = keyframe.sizes()[cell++];
+                writeCell(keyframe.ordinals(), position, size);
+                position += size;
+            }
+            ensure(1);
+            buffer[length++] = ']';
+        }
+        ensure(1);
+        buffer[length++] = ']';
+        // The message keeps its payload, so it cannot share the buffer with the next frame
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void writeCell(byte[] ordinals, int position, int size) {
+        // Every fragment of the cell fits: its elements, then the fixed fields with the longest values
+        ensure(CELL_START.length + size * (MAX_TOKEN + 1) + PROPERTY.length + EMPTY.length + NOUN.length
+                + 3 * MAX_TOKEN + 1);
+        write(CELL_START);
+        byte[] property = null;
+        byte[] noun = null;
+        for (var k = 0; k < size; k++) {
+            var ordinal = ordinals[position + k];
+            if (k > 0) {
+                buffer[length++] = ',';
+            }
+            write(NAMES[ordinal]);
+            // Like Cellule, the first word of the stack giving a property (or a noun) names it
+            if (property == null) {
+                property = PROPERTIES[ordinal];
+            }
+            if (noun == null) {
+                noun = NOUNS[ordinal];
+            }
+        }
+        write(PROPERTY);
+        write(property == null ? NULL : property);
+        write(EMPTY);
+        write(size == 0 ? TRUE : FALSE);
+        write(NOUN);
+        write(noun == null ? NULL : noun);
+        buffer[length++] = '}';
+    }
+
+    private void write(byte[] fragment) {
+        System.arraycopy(fragment, 0, buffer, length, fragment.length);
+        length += fragment.length;
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+
+    private static byte[] quoted(String name) {
+        return ascii('"' + name + '"');
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
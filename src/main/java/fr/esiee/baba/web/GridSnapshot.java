@@ -0,0 +1,107 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.model.Board;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Picture of some cells of a board, taken when a frame is rendered so that it can be encoded later on, whatever the
+ * level has become in the meantime.
+ * <p>
+ * A keyframe holds every cell of the board; a delta holds only the cells changed since the previous frame. The stacks
+ * are stored as element ordinals, one after the other, in the order of {@link #cells()}. Snapshots are numbered when
+ * they are sent, so that snapshots merged while waiting to be sent still make a gapless sequence.
+ *
+ * @param keyframe true if the snapshot holds every cell, false if it only holds the changed ones.
+ * @param height the number of rows of the board.
+ * @param width the number of columns of the board.
+ * @param cells the indices of the cells held, in increasing order.
+ * @param sizes the height of the stack of each cell held.
+ * @param ordinals the ordinals of the elements of the stacks, bottom first, cell after cell.
+ */
+record GridSnapshot(boolean keyframe, int height, int width, int[] cells, int[] sizes, byte[] ordinals) {
+
+    /**
+     * Takes a picture of every cell of a board.
+     *
+     * @param board the board to picture.
+     * @return the keyframe.
+     */
+    static GridSnapshot keyframe(Board board) {
+        var cells = new int[board.getCellCount()];
+        for (var i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        return capture(true, board, cells);
+    }
+
+    /**
+     * Takes a picture of the changed cells of a board.
+     *
+     * @param board the board to picture.
+     * @param changed the cells changed since the previous frame.
+     * @return the delta.
+     */
+    static GridSnapshot delta(Board board, BitSet changed) {
+        return capture(false, board, changed.stream().toArray());
+    }
+
+    /**
+     * Merges two snapshots following each other into one showing the same final state: the later snapshot if it is a
+     * keyframe, otherwise the cells of both, with the stacks of the later one where they overlap. The merge of a
+     * keyframe and a delta is a keyframe.
+     *
+     * @param earlier the snapshot taken first.
+     * @param later the snapshot taken next, of the same board.
+     * @return the merged snapshot.
+     */
+    static GridSnapshot merge(GridSnapshot earlier, GridSnapshot later) {
+        if (later.keyframe) {
+            return later;
+        }
+        var cells = new int[earlier.cells.length + later.cells.length];
+        var sizes = new int[cells.length];
+        var ordinals = new byte[earlier.ordinals.length + later.ordinals.length];
+        int count = 0, length = 0, i = 0, j = 0, earlierPosition = 0, laterPosition = 0;
+        while (i < earlier.cells.length || j < later.cells.length) {
+            var fromEarlier = j == later.cells.length
+                    || i < earlier.cells.length && earlier.cells[i] < later.cells[j];
+            if (fromEarlier) {
+                cells[count] = earlier.cells[i];
+                sizes[count] = earlier.sizes[i];
+                System.arraycopy(earlier.ordinals, earlierPosition, ordinals, length, sizes[count]);
+                earlierPosition += earlier.sizes[i++];
+            } else {
+                if (i < earlier.cells.length && earlier.cells[i] == later.cells[j]) {
+                    // Overwritten by the later stack
+                    earlierPosition += earlier.sizes[i++];
+                }
+                cells[count] = later.cells[j];
+                sizes[count] = later.sizes[j];
+                System.arraycopy(later.ordinals, laterPosition, ordinals, length, sizes[count]);
+                laterPosition += later.sizes[j++];
+            }
+            length += sizes[count++];
+        }
+        return new GridSnapshot(earlier.keyframe, later.height, later.width, Arrays.copyOf(cells, count),
+                Arrays.copyOf(sizes, count), Arrays.copyOf(ordinals, length));
+    }
+
+    private static GridSnapshot capture(boolean keyframe, Board board, int[] cells) {
+        var sizes = new int[cells.length];
+        var total = 0;
+        for (var i = 0; i < cells.length; i++) {
+            sizes[i] = board.size(cells[i]);
+            total += sizes[i];
+        }
+        var ordinals = new byte[total];
+        var position = 0;
+        for (var i = 0; i < cells.length; i++) {
+            for (var k = 0; k < sizes[i]; k++) {
+                ordinals[position++] = (byte) board.elementAt(cells[i], k).ordinal();
+            }
+        }
+        return new GridSnapshot(keyframe, board.getHeight(), board.getWidth(), cells, sizes, ordinals);
+    }
+}
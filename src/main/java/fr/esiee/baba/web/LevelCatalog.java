@@ -0,0 +1,167 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.controller.BinaryLevelFormat;
+import fr.esiee.baba.controller.LevelParser;
+import fr.esiee.baba.model.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catalog of the bundled levels, parsed once at startup.
+ * Sessions never touch the templates directly: they receive fresh copies through {@link #newLevels()}.
+ * The list of templates is immutable and swapped as a whole when a level is replaced at runtime (see
+ * {@link LevelDirectoryWatcher}), so each call to {@link #newLevels()} sees one consistent version of the levels.
+ */
+@Component
+public class LevelCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(LevelCatalog.class);
+
+    // Where the build puts the compiled form of the level files, next to them
+    private static final String COMPILED_DIRECTORY = "compiled/";
+
+    private final AtomicReference<List<Level>> templates;
+
+    /**
+     * Scans the classpath for level files and parses each of them once.
+     *
+     * @param resourceResolver resolver used to locate the level files.
+     */
+    public LevelCatalog(ResourcePatternResolver resourceResolver) {
+        long start = System.nanoTime();
+        List<Level> levels = List.copyOf(loadLevels(resourceResolver));
+        this.templates = new AtomicReference<>(levels);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (levels.isEmpty()) {
+            logger.error("CRITICAL: Level catalog is empty! Clients will see black screen.");
+        } else {
+            logger.info("Level catalog ready: {} levels parsed in {} ms", levels.size(), elapsedMs);
+        }
+    }
+
+    private static List<Level> loadLevels(ResourcePatternResolver resourceResolver) {
+        List<Level> levels = new ArrayList<>();
+        try {
+            logger.debug("Loading levels from classpath...");
+
+            // Try text/ directory first (primary location)
+            Resource[] resources = resourceResolver.getResources("classpath:text/*.txt");
+
+            // Fallback to static/text/ if nothing found
+            if (resources == null || resources.length == 0) {
+                logger.debug("No levels found in classpath:text/, trying classpath:static/text/");
+                resources = resourceResolver.getResources("classpath:static/text/*.txt");
+            }
+
+            if (resources != null && resources.length > 0) {
+                logger.info("Found {} level files", resources.length);
+
+                // Sort resources to ensure level order
+                Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+
+                for (Resource res : resources) {
+                    try {
+                        levels.add(loadLevel(res));
+                    } catch (Exception e) {
+                        logger.error("Failed to parse level file: {}", res.getFilename(), e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Critical error loading levels from classpath", e);
+        }
+        return levels;
+    }
+
+    /**
+     * Loads a level from its compiled form when the build produced one, and from its text form otherwise.
+     * A compiled level written for another version of the game is ignored in favor of the text.
+     *
+     * @param res the text file of the level.
+     * @return the parsed level, named after its text file.
+     * @throws IOException if the level cannot be read.
+     */
+    private static Level loadLevel(Resource res) throws IOException {
+        String name = res.getFilename();
+        Resource compiled = res.createRelative(COMPILED_DIRECTORY
+                + name.substring(0, name.length() - ".txt".length()) + BinaryLevelFormat.EXTENSION);
+        if (compiled.exists()) {
+            try (InputStream in = compiled.getInputStream()) {
+                Level level = BinaryLevelFormat.read(ByteBuffer.wrap(in.readAllBytes()), name);
+                logger.debug("Loaded compiled level: {}", name);
+                return level;
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring compiled level {}, reading its text instead: {}", name, e.getMessage());
+            }
+        }
+        try (Reader reader = new InputStreamReader(res.getInputStream(), StandardCharsets.UTF_8)) {
+            Level level = LevelParser.parse(reader, name);
+            logger.debug("Loaded level: {}", name);
+            return level;
+        }
+    }
+
+    /**
+     * Puts a new version of a level in the catalog, in place of the level with the same name, or among the others in
+     * name order if there is none. Sessions already playing keep their copies; new sessions and restarts get the new
+     * version.
+     *
+     * @param level the new version of the level, named after its file; owned by the catalog from now on.
+     */
+    public void replace(Level level) {
+        String name = level.getLevelFilePath();
+        templates.updateAndGet(current -> {
+            List<Level> levels = new ArrayList<>(current);
+            levels.removeIf(template -> template.getLevelFilePath().equals(name));
+            levels.add(level);
+            levels.sort(Comparator.comparing(Level::getLevelFilePath));
+            return List.copyOf(levels);
+        });
+        logger.info("Level {} replaced in the catalog", name);
+    }
+
+    /**
+     * Returns fresh, independently playable copies of every level, in order.
+     *
+     * @return a new mutable list of level copies.
+     */
+    public List<Level> newLevels() {
+        List<Level> current = templates.get();
+        var levels = new ArrayList<Level>(current.size());
+        for (Level template : current) {
+            levels.add(template.copy());
+        }
+        return levels;
+    }
+
+    /**
+     * Gets the number of levels in the catalog.
+     *
+     * @return the level count.
+     */
+    public int size() {
+        return templates.get().size();
+    }
+
+    /**
+     * Checks whether the catalog holds no level at all.
+     *
+     * @return true if no level could be loaded, false otherwise.
+     */
+    public boolean isEmpty() {
+        return templates.get().isEmpty();
+    }
+}
@@ -0,0 +1,149 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.controller.LevelParser;
+import fr.esiee.baba.model.Level;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional hot reload of levels: watches a directory of level files and puts every new or changed {@code .txt} file
+ * in the {@link LevelCatalog}, in place of the bundled level with the same name.
+ * <p>
+ * Enabled by the {@code baba.levels.watch-dir} property. The files of the directory are loaded once at startup, then
+ * reparsed on a background thread when they change, after a short quiet period so that a file still being written is
+ * read once it is complete. A file that cannot be read, or is empty, leaves the previous version of its level in place;
+ * deleted files are ignored.
+ */
+@Component
+public class LevelDirectoryWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LevelDirectoryWatcher.class);
+    private static final long QUIET_PERIOD_MS = 200;
+
+    private final LevelCatalog levelCatalog;
+    private final Path directory;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs the watcher.
+     *
+     * @param levelCatalog the catalog updated with the changed levels.
+     * @param directory the directory to watch, or an empty string to disable hot reload.
+     */
+    public LevelDirectoryWatcher(LevelCatalog levelCatalog, @Value("${baba.levels.watch-dir:}") String directory) {
+        this.levelCatalog = levelCatalog;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+    }
+
+    /**
+     * Loads the levels of the directory and starts watching it, if hot reload is enabled.
+     *
+     * @throws IOException if the directory cannot be watched.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (directory == null) {
+            logger.debug("Level hot reload disabled");
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        reloadAll();
+        thread = Thread.ofPlatform().name("level-watcher").daemon().start(this::watch);
+        logger.info("Watching {} for level changes", directory.toAbsolutePath());
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                var changed = new TreeSet<String>();
+                var overflow = false;
+                // Gathers the events until the directory has been quiet for a while
+                for (var key = watchService.take(); key != null;
+                        key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (event.context() instanceof Path file && isLevelFile(file)) {
+                            changed.add(file.toString());
+                        }
+                    }
+                    key.reset();
+                }
+                if (overflow) {
+                    reloadAll();
+                } else {
+                    reload(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Level watcher stopped");
+        }
+    }
+
+    private void reloadAll() {
+        var names = new TreeSet<String>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.txt")) {
+            for (Path file : files) {
+                names.add(file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list the levels of {}", directory, e);
+        }
+        reload(names);
+    }
+
+    private void reload(Set<String> names) {
+        for (String name : names) {
+            Path file = directory.resolve(name);
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try (var reader = Files.newBufferedReader(file)) {
+                Level level = LevelParser.parse(reader, name);
+                if (level.getBoard().getCellCount() == 0) {
+                    logger.warn("Ignoring empty level file {}", file);
+                    continue;
+                }
+                levelCatalog.replace(level);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to reload level file {}, keeping the previous version", file, e);
+            }
+        }
+    }
+
+    private static boolean isLevelFile(Path file) {
+        return file.toString().endsWith(".txt");
+    }
+}
@@ -0,0 +1,70 @@
+package fr.esiee.baba.web;
+
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Answer to a {@code MOVES} command: the number of moves asked for and the number played, or why the command was
+ * rejected. Every command gets one, so the client always knows when its moves are done.
+ * <p>
+ * Replies waiting for a client that does not read them are merged (see {@link FrameSender}): the counts add up, so the
+ * client still learns how many moves were played in all.
+ *
+ * @param commands the number of commands answered.
+ * @param requested the number of moves the commands asked for.
+ * @param applied the number of moves played.
+ * @param error why the last rejected command was rejected, or null if none was.
+ */
+record MovesReply(int commands, int requested, int applied, String error) {
+
+    /**
+     * Answers a command whose moves were played.
+     *
+     * @param requested the number of moves of the command.
+     * @param applied the number of moves played, fewer if the level was completed or lost on the way.
+     * @return the reply.
+     */
+    static MovesReply played(int requested, int applied) {
+        return new MovesReply(1, requested, applied, null);
+    }
+
+    /**
+     * Answers a command that was not played at all.
+     *
+     * @param requested the number of moves of the command.
+     * @param error why the command was rejected; plain words, written as is in the JSON string.
+     * @return the reply.
+     */
+    static MovesReply rejected(int requested, String error) {
+        return new MovesReply(1, requested, 0, error);
+    }
+
+    /**
+     * Merges two replies following each other into one, adding up their counts.
+     *
+     * @param earlier the reply queued first.
+     * @param later the reply queued next.
+     * @return the merged reply, with the error of the later reply if it has one.
+     */
+    static MovesReply merge(MovesReply earlier, MovesReply later) {
+        return new MovesReply(earlier.commands + later.commands, earlier.requested + later.requested,
+                earlier.applied + later.applied, later.error != null ? later.error : earlier.error);
+    }
+
+    /**
+     * Writes the reply: {@code {"type":"moves","requested":N,"applied":M}}, with the number of {@code commands} when
+     * it answers several and the {@code error} when a command was rejected.
+     *
+     * @return the text message to send.
+     */
+    TextMessage toMessage() {
+        var json = new StringBuilder("{\"type\":\"moves\"");
+        if (commands != 1) {
+            json.append(",\"commands\":").append(commands);
+        }
+        json.append(",\"requested\":").append(requested).append(",\"applied\":").append(applied);
+        if (error != null) {
+            json.append(",\"error\":\"").append(error).append('"');
+        }
+        return new TextMessage(json.append('}').toString());
+    }
+}
@@ -0,0 +1,136 @@
+package fr.esiee.baba.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inbox of one session: runs the tasks posted by the WebSocket I/O threads one at a time, in the order they were
+ * posted, on the threads of the game executor.
+ * <p>
+ * Every change to the game of a session goes through its mailbox, so the game, its levels and their undo journals are
+ * only ever touched by one thread at a time and need no locks. Once the tasks waiting have run, the mailbox runs its
+ * flush task: tasks can leave their output to it, so that a burst of inputs gives a single output.
+ * <p>
+ * A session holds a thread for at most {@value #MAX_BATCH} tasks in a row (then flushes) before letting the other
+ * sessions run, and keeps at most {@value #CAPACITY} tasks waiting: inputs beyond that, from a client sending faster
+ * than its game can run, are dropped.
+ */
+final class SessionMailbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionMailbox.class);
+    static final int CAPACITY = 256;
+    static final int MAX_BATCH = 32;
+
+    private final String sessionId;
+    private final Executor executor;
+    private final Runnable flush;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    /**
+     * Constructs the mailbox of a session.
+     *
+     * @param sessionId the identifier of the session, for the logs.
+     * @param executor the executor running the game tasks of every session.
+     */
+    SessionMailbox(String sessionId, Executor executor) {
+        this(sessionId, executor, () -> { });
+    }
+
+    /**
+     * Constructs the mailbox of a session, with a task to run after each burst of tasks.
+     *
+     * @param sessionId the identifier of the session, for the logs.
+     * @param executor the executor running the game tasks of every session.
+     * @param flush the task run, like the others, once no task is waiting or before letting the other sessions run.
+     */
+    SessionMailbox(String sessionId, Executor executor, Runnable flush) {
+        this.sessionId = sessionId;
+        this.executor = executor;
+        this.flush = flush;
+    }
+
+    /**
+     * Queues a task, to run after the tasks posted before it.
+     *
+     * @param task the task to run.
+     * @return false if the task was dropped because the mailbox is full or closed.
+     */
+    boolean post(Runnable task) {
+        lock.lock();
+        try {
+            if (closed || tasks.size() >= CAPACITY) {
+                return false;
+            }
+            tasks.add(task);
+            if (draining) {
+                return true;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(this::drain);
+        return true;
+    }
+
+    /**
+     * Drops the tasks still waiting and refuses the next ones; a task already running completes.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            tasks.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        var run = 0;
+        while (run < MAX_BATCH) {
+            Runnable task;
+            lock.lock();
+            try {
+                task = tasks.poll();
+            } finally {
+                lock.unlock();
+            }
+            if (task == null) {
+                run(flush);
+                lock.lock();
+                try {
+                    // Tasks posted during the flush are run by this drain, then flushed in turn
+                    if (tasks.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                continue;
+            }
+            run(task);
+            run++;
+        }
+        // Still draining: the rest of the tasks run after the other sessions had their turn
+        run(flush);
+        executor.execute(this::drain);
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Game task failed for session: {}", sessionId, e);
+        }
+    }
+}
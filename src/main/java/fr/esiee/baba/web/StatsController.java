@@ -0,0 +1,39 @@
+package fr.esiee.baba.web;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publishes the state of the game server at {@code /api/stats}: open sessions, outbound frame counters, and the heap
+ * and platform threads in use, with the thread mode, to compare the footprint of the sessions in both modes.
+ */
+@RestController
+public class StatsController {
+
+    private final GameWebSocketHandler gameWebSocketHandler;
+    private final FrameStatistics frameStatistics;
+
+    public StatsController(GameWebSocketHandler gameWebSocketHandler, FrameStatistics frameStatistics) {
+        this.gameWebSocketHandler = gameWebSocketHandler;
+        this.frameStatistics = frameStatistics;
+    }
+
+    @GetMapping("/api/stats")
+    public Map<String, Object> stats() {
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", gameWebSocketHandler.getSessionCount());
+        stats.put("pendingFrames", frameStatistics.getPendingFrames());
+        stats.put("sentFrames", frameStatistics.getSentFrames());
+        stats.put("droppedFrames", frameStatistics.getDroppedFrames());
+        stats.put("failedSends", frameStatistics.getFailedSends());
+        stats.put("virtualThreads", gameWebSocketHandler.isVirtualThreads());
+        stats.put("platformThreads", ManagementFactory.getThreadMXBean().getThreadCount());
+        stats.put("heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+        return stats;
+    }
+}
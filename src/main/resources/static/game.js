@@ -4,6 +4,15 @@ const statusDiv = document.getElementById('status');
 const BLOCK_SIZE = 24; // Adjust based on image size
 
 let socket;
+// Grid shown with the delta protocol: keyframes replace it, delta frames patch the changed cells
+let view = null;
+let resyncPending = false;
+// Frame protocol asked for at connect time: 'binary' unless the page address names another ('delta', 'json')
+const frameProtocol = new URLSearchParams(window.location.search).get('protocol') || 'binary';
+// Element names by ordinal, sent by the server before the first binary frame
+let elementNames = [];
+// Opcodes of the commands in the binary protocol
+const OPCODES = { UP: 1, DOWN: 2, LEFT: 3, RIGHT: 4, UNDO: 5, RESTART: 6, RESYNC: 7 };
 const images = {};
 const IMAGE_NAMES = [
     'babaEntity', 'babaWord', 'brickEntity', 'brickWord', 'defeatWord', 'emptyEntity',
@@ -56,12 +65,13 @@ IMAGE_NAMES.forEach(name => {
 function connect() {
     // Dynamically choose WS or WSS based on current page protocol
     const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
-    const wsUrl = `${protocol}//${window.location.host}/game-ws`;
+    const wsUrl = `${protocol}//${window.location.host}/game-ws?protocol=${frameProtocol}`;
 
     console.log('Connecting to WebSocket:', wsUrl);
     statusDiv.innerText = 'Connecting to server...';
 
     socket = new WebSocket(wsUrl);
+    socket.binaryType = 'arraybuffer';
 
     socket.onopen = () => {
         console.log('WebSocket connection established');
@@ -72,8 +82,22 @@ function connect() {
     socket.onmessage = (event) => {
         console.log('Received message from server');
         try {
+            if (event.data instanceof ArrayBuffer) {
+                applyFrame(decodeFrame(event.data));
+                return;
+            }
+
             const data = JSON.parse(event.data);
 
+            if (data.type === 'moves') {
+                // Answer to MOVES:..., after the frame of the final state; a rejected command played no move
+                if (data.error) {
+                    console.warn('Moves rejected:', data.error);
+                }
+                console.log('Played', data.applied, 'of', data.requested, 'moves');
+                return;
+            }
+
             // Check if this is an error message
             if (data.error) {
                 statusDiv.innerText = `Server Error: ${data.error}`;
@@ -82,8 +106,14 @@ function connect() {
                 return;
             }
 
-            // Normal grid data
-            render(data);
+            if (Array.isArray(data)) {
+                // Whole grid (original protocol)
+                render(data);
+            } else if (data.type === 'elements') {
+                elementNames = data.names;
+            } else {
+                applyFrame(data);
+            }
         } catch (e) {
             console.error('Failed to parse server message:', e);
             statusDiv.innerText = 'Error: Invalid data received from server';
@@ -127,26 +157,11 @@ function render(grid) {
     for (let r = 0; r < rows; r++) {
         for (let c = 0; c < cols; c++) {
             const cell = grid[r][c];
-            // Cell is a list of elements? Or simplified?
             // "Cellule" object has "elements" field.
             // JSON structure: { elements: ["BABA", "IS", "YOU"] } (Enums as strings)
 
             if (cell.elements) {
-                cell.elements.forEach(el => {
-                    const imgName = getElementName(el);
-                    if (images[imgName]) {
-                        ctx.drawImage(images[imgName], c * BLOCK_SIZE, r * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
-                        renderedElements++;
-                    } else if (el !== 'EMPTY') {
-                        console.warn('Missing image for element:', el, '(expected:', imgName + ')');
-                        // Fallback: draw colored square
-                        ctx.fillStyle = '#ff00ff';
-                        ctx.fillRect(c * BLOCK_SIZE, r * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
-                        ctx.fillStyle = 'white';
-                        ctx.font = '8px monospace';
-                        ctx.fillText(el.substring(0, 4), c * BLOCK_SIZE + 2, r * BLOCK_SIZE + 12);
-                    }
-                });
+                renderedElements += drawCell(r, c, cell.elements);
             }
         }
     }
@@ -154,6 +169,111 @@ function render(grid) {
     console.log('Rendered', renderedElements, 'elements');
 }
 
+// Delta protocol: {"type":"key","seq","height","width","stacks"} holds every cell in row-major order,
+// {"type":"delta","seq","cells","stacks"} holds the changed cells only, by index
+function applyFrame(frame) {
+    if (frame.type === 'key') {
+        view = { seq: frame.seq, height: frame.height, width: frame.width, stacks: frame.stacks };
+        resyncPending = false;
+        canvas.width = view.width * BLOCK_SIZE;
+        canvas.height = view.height * BLOCK_SIZE;
+        ctx.clearRect(0, 0, canvas.width, canvas.height);
+        view.stacks.forEach((stack, index) => drawCell(Math.floor(index / view.width), index % view.width, stack));
+        return;
+    }
+
+    if (frame.type === 'delta') {
+        if (!view || frame.seq !== view.seq + 1) {
+            // A frame was missed: the grid shown is out of date until the next keyframe
+            if (!resyncPending) {
+                console.warn('Missed frame before', frame.seq, '- asking for a keyframe');
+                resyncPending = true;
+                view = null;
+                sendCommand('RESYNC');
+            }
+            return;
+        }
+        view.seq = frame.seq;
+        frame.cells.forEach((index, i) => {
+            view.stacks[index] = frame.stacks[i];
+            drawCell(Math.floor(index / view.width), index % view.width, frame.stacks[i]);
+        });
+        return;
+    }
+
+    console.warn('Unknown frame type:', frame.type);
+}
+
+// Binary protocol, big-endian: a type byte (1 keyframe, 2 delta) and a 32-bit sequence number, then
+// keyframe: 16-bit height, 16-bit width, every stack; delta: 32-bit cell count, then each cell index and its stack.
+// A stack is its height, then one element ordinal per byte, bottom first. The height takes one byte below 128; taller
+// stacks write it in 7-bit groups, low group first, the high bit of a byte telling whether another one follows.
+function decodeFrame(buffer) {
+    const data = new DataView(buffer);
+    const keyframe = data.getUint8(0) === 1;
+    const frame = { type: keyframe ? 'key' : 'delta', seq: data.getUint32(1), stacks: [] };
+    let offset = 5;
+    let count;
+    if (keyframe) {
+        frame.height = data.getUint16(offset);
+        frame.width = data.getUint16(offset + 2);
+        count = frame.height * frame.width;
+        offset += 4;
+    } else {
+        frame.cells = [];
+        count = data.getUint32(offset);
+        offset += 4;
+    }
+    for (let i = 0; i < count; i++) {
+        if (!keyframe) {
+            frame.cells.push(data.getUint32(offset));
+            offset += 4;
+        }
+        let size = 0;
+        for (let shift = 0, b = 0x80; b & 0x80; shift += 7) {
+            b = data.getUint8(offset++);
+            size += (b & 0x7f) * 2 ** shift;
+        }
+        const stack = [];
+        for (let k = 0; k < size; k++) {
+            stack.push(elementNames[data.getUint8(offset++)]);
+        }
+        frame.stacks.push(stack);
+    }
+    return frame;
+}
+
+// Sends a command as text, or as its opcode byte with the binary protocol
+function sendCommand(command) {
+    if (frameProtocol === 'binary') {
+        socket.send(Uint8Array.of(OPCODES[command]));
+    } else {
+        socket.send(command);
+    }
+}
+
+// Draws the stack of elements of one cell over a cleared square; returns the number of images drawn
+function drawCell(r, c, elements) {
+    let drawn = 0;
+    ctx.clearRect(c * BLOCK_SIZE, r * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+    elements.forEach(el => {
+        const imgName = getElementName(el);
+        if (images[imgName]) {
+            ctx.drawImage(images[imgName], c * BLOCK_SIZE, r * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            drawn++;
+        } else if (el !== 'EMPTY') {
+            console.warn('Missing image for element:', el, '(expected:', imgName + ')');
+            // Fallback: draw colored square
+            ctx.fillStyle = '#ff00ff';
+            ctx.fillRect(c * BLOCK_SIZE, r * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            ctx.fillStyle = 'white';
+            ctx.font = '8px monospace';
+            ctx.fillText(el.substring(0, 4), c * BLOCK_SIZE + 2, r * BLOCK_SIZE + 12);
+        }
+    });
+    return drawn;
+}
+
 function getElementName(enumStr) {
     // Map Enum String (e.g., "ENTITY_BABA") to Image Name ("babaEntity")
     // Rules: 
@@ -183,6 +303,6 @@ window.addEventListener('keydown', (e) => {
     }
 
     if (command) {
-        socket.send(command);
+        sendCommand(command);
     }
 });
@@ -0,0 +1,74 @@
+package fr.esiee.baba.controller;
+
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+class BinaryLevelFormatTest {
+
+    @Test
+    void testCompiledLevelsMatchTextLevels() throws IOException {
+        for (int i = 0; i <= 7; i++) {
+            String name = "level" + i + ".txt";
+            Level text = Game.parseLevel(readLines("/text/" + name), name);
+            Level compiled = BinaryLevelFormat.read(ByteBuffer.wrap(BinaryLevelFormat.write(text)), name);
+
+            assertTrue(compiled.getBoard().sameContent(text.getBoard()), name);
+            assertEquals(text.stateHash(), compiled.stateHash(), name);
+            assertEquals(text.getYouElements(), compiled.getYouElements(), name);
+            assertEquals(name, compiled.getLevelFilePath());
+            // Both forms play the same
+            for (Direction direction : Direction.values()) {
+                text.update(direction, false);
+                compiled.update(direction, false);
+                assertEquals(text.stateHash(), compiled.stateHash(), name + " " + direction);
+            }
+        }
+    }
+
+    @Test
+    void testForeignBytesAreRejected() throws IOException {
+        Level level = Game.parseLevel(readLines("/text/level0.txt"), "level0.txt");
+        byte[] compiled = BinaryLevelFormat.write(level);
+
+        byte[] otherVersion = compiled.clone();
+        otherVersion[5]++;
+        assertThrows(IllegalArgumentException.class, () -> BinaryLevelFormat.read(ByteBuffer.wrap(otherVersion), "x"));
+        // Same number of elements, but not the same ones
+        byte[] otherElements = compiled.clone();
+        otherElements[6]++;
+        assertThrows(IllegalArgumentException.class, () -> BinaryLevelFormat.read(ByteBuffer.wrap(otherElements), "x"));
+        byte[] truncated = Arrays.copyOf(compiled, compiled.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryLevelFormat.read(ByteBuffer.wrap(truncated), "x"));
+        byte[] text = "b i y \n".getBytes();
+        assertThrows(IllegalArgumentException.class, () -> BinaryLevelFormat.read(ByteBuffer.wrap(text), "x"));
+    }
+
+    @Test
+    void testLevelIsReadInPlace() throws IOException {
+        Level level = Game.parseLevel(readLines("/text/level1.txt"), "level1.txt");
+        byte[] compiled = BinaryLevelFormat.write(level);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(compiled.length + 8);
+        buffer.position(3);
+        buffer.put(compiled).flip().position(3);
+
+        Level read = BinaryLevelFormat.read(buffer, "level1.txt");
+        assertTrue(read.getBoard().sameContent(level.getBoard()));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    private static List<String> readLines(String resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(BinaryLevelFormatTest.class.getResourceAsStream(resource)))) {
+            return reader.lines().toList();
+        }
+    }
+}
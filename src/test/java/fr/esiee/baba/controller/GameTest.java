@@ -0,0 +1,62 @@
+package fr.esiee.baba.controller;
+
+import fr.esiee.baba.controller.Game.GameAction;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class GameTest {
+
+    private static final List<GameAction> FOUR_MOVES = List.of(GameAction.MOVE_RIGHT, GameAction.MOVE_RIGHT,
+            GameAction.MOVE_LEFT, GameAction.MOVE_DOWN);
+
+    @Test
+    void testMovesAreAllPlayed() {
+        Level level = Game.parseLevel(List.of("b i y - - ", "- - - - - ", "B - - - - "), "open.txt");
+        List<Level> rendered = new ArrayList<>();
+        Game game = new Game(List.of(level), rendered::add);
+        game.start();
+
+        assertEquals(4, game.handleMoves(FOUR_MOVES));
+        assertEquals(5, rendered.size());
+        assertEquals(4, level.getUndoDepth());
+    }
+
+    @Test
+    void testMovesStopWhenTheLevelIsCompleted() {
+        Level first = Game.parseLevel(List.of("b i y - - ", "f i v - - ", "B F - - - "), "first.txt");
+        Level second = Game.parseLevel(List.of("b i y - - ", "- - - - - ", "- - B - - "), "second.txt");
+        Game game = new Game(List.of(first, second), level -> { });
+        game.start();
+
+        assertEquals(1, game.handleMoves(FOUR_MOVES));
+        assertTrue(first.isCompleted());
+        assertSame(second, game.getCurrentLevel());
+        assertEquals(0, second.getUndoDepth());
+    }
+
+    @Test
+    void testMovesStopWhenNothingIsLeftToControl() {
+        Level level = Game.parseLevel(List.of("b i y - - ", "s i d - - ", "B S - - - "), "defeat.txt");
+        Game game = new Game(List.of(level), rendered -> { });
+        game.start();
+
+        assertEquals(1, game.handleMoves(FOUR_MOVES));
+        assertTrue(level.getYouElements().isEmpty());
+        assertSame(level, game.getCurrentLevel());
+    }
+
+    @Test
+    void testOnlyMovesAreAccepted() {
+        Level level = Game.parseLevel(List.of("b i y ", "B - - "), "small.txt");
+        Game game = new Game(List.of(level), rendered -> { });
+        game.start();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> game.handleMoves(List.of(GameAction.MOVE_RIGHT, GameAction.UNDO)));
+        assertEquals(0, level.getUndoDepth());
+    }
+}
@@ -0,0 +1,84 @@
+package fr.esiee.baba.controller;
+
+import fr.esiee.baba.model.Cellule;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class LevelParserTest {
+
+    // Tokens mixing element codes, unknown and multi-character tokens, spaces and line breaks
+    private static final String[] PIECES = {
+            "b", "i", "y", "f", "v", "B", "F", "W", "R", "-", "p", "?", "bb", "é", "\t", " ", " ", " ", " ",
+            "\n", "\r\n", "\r", "\n\n" };
+
+    @Test
+    void testParsesLikeSplittingLines() throws IOException {
+        Random random = new Random(7);
+        for (int run = 0; run < 500; run++) {
+            StringBuilder text = new StringBuilder();
+            int pieces = random.nextInt(200);
+            for (int i = 0; i < pieces; i++) {
+                text.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            List<String> lines = new BufferedReader(new StringReader(text.toString())).lines().toList();
+            Level expected = splitLines(lines);
+
+            Level fromReader = LevelParser.parse(new StringReader(text.toString()), "level.txt");
+            Level fromBytes = LevelParser.parse(
+                    ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)), "level.txt");
+            Level fromLines = LevelParser.parse(lines, "level.txt");
+            String context = "text: " + text.toString().replace("\n", "\\n").replace("\r", "\\r");
+            assertTrue(fromReader.getBoard().sameContent(expected.getBoard()), context);
+            assertTrue(fromBytes.getBoard().sameContent(expected.getBoard()), context);
+            assertTrue(fromLines.getBoard().sameContent(expected.getBoard()), context);
+            assertEquals(expected.stateHash(), fromReader.stateHash(), context);
+        }
+    }
+
+    @Test
+    void testJaggedRowsArePadded() throws IOException {
+        Level level = LevelParser.parse(new StringReader("b i y\n\n  B\n \nF"), "jagged.txt");
+
+        assertEquals(4, level.getBoard().getHeight());
+        assertEquals(3, level.getBoard().getWidth());
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_BABA), level.getGrid().get(1).get(2).getElements());
+        assertTrue(level.getGrid().get(2).get(0).getElements().isEmpty());
+        assertTrue(level.getGrid().get(3).get(1).getElements().isEmpty());
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_FLAG), level.getGrid().get(3).get(0).getElements());
+    }
+
+    /**
+     * The reference reading of the format: each non-empty line split on single spaces.
+     */
+    private static Level splitLines(List<String> lines) {
+        List<List<Cellule>> grid = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<Cellule> row = new ArrayList<>();
+            for (String token : line.split(" ")) {
+                Cellule cell = new Cellule();
+                cell.addElement(Element.EMPTY);
+                Element element = Game.stringToElement(token);
+                if (element != Element.EMPTY) {
+                    cell.addElement(element);
+                }
+                row.add(cell);
+            }
+            grid.add(row);
+        }
+        return new Level(grid, "level.txt");
+    }
+}
@@ -0,0 +1,256 @@
+package fr.esiee.baba.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+class BoardTest {
+
+    @Test
+    void testRoundTripWithCells() {
+        List<List<Cellule>> grid = new ArrayList<>();
+        List<Cellule> row = new ArrayList<>();
+        Cellule c1 = new Cellule();
+        c1.addElement(Element.EMPTY);
+        c1.addElement(Element.ENTITY_ROCK);
+        row.add(c1);
+        Cellule c2 = new Cellule();
+        c2.addElement(Element.EMPTY);
+        row.add(c2);
+        grid.add(row);
+
+        Board board = Board.fromCells(grid);
+        assertEquals(1, board.getHeight());
+        assertEquals(2, board.getWidth());
+        assertEquals(2, board.size(board.index(0, 0)));
+        assertEquals(Element.ENTITY_ROCK, board.elementAt(board.index(0, 0), 1));
+
+        List<List<Cellule>> cells = board.toCells();
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_ROCK), cells.get(0).get(0).getElements());
+        assertEquals(List.of(Element.EMPTY), cells.get(0).get(1).getElements());
+    }
+
+    @Test
+    void testStacksGrowBeyondInitialCapacity() {
+        Board board = new Board(2, 2);
+        board.add(board.index(1, 1), Element.ENTITY_WALL);
+        for (int i = 0; i < 10; i++) {
+            board.add(board.index(0, 1), Element.ENTITY_ROCK);
+        }
+        assertEquals(10, board.size(board.index(0, 1)));
+        assertEquals(Element.ENTITY_WALL, board.elementAt(board.index(1, 1), 0));
+
+        assertTrue(board.remove(board.index(0, 1), Element.ENTITY_ROCK));
+        assertEquals(9, board.size(board.index(0, 1)));
+        assertFalse(board.remove(board.index(0, 1), Element.ENTITY_BABA));
+    }
+
+    @Test
+    void testTallStacksHaveNoLimit() {
+        Board board = new Board(2, 3);
+        int tall = board.index(1, 2);
+        for (int i = 0; i < 300; i++) {
+            board.add(tall, i % 3 == 0 ? Element.ENTITY_ROCK : Element.ENTITY_BABA);
+            // Other cells keep growing through the shared stride meanwhile
+            if (i < 100) {
+                board.add(board.index(0, 0), Element.ENTITY_WALL);
+            }
+        }
+        assertEquals(300, board.size(tall));
+        assertEquals(100, board.size(board.index(0, 0)));
+        assertEquals(Element.ENTITY_BABA, board.elementAt(tall, 299));
+        assertEquals(Board.fromCells(board.toCells()).stateHash(), board.stateHash());
+        assertTrue(Board.decode(2, 3, board.encode()).sameContent(board));
+        assertTrue(board.copy().sameContent(board));
+
+        board.moveElements(tall, board.index(1, 1), e -> e == Element.ENTITY_BABA);
+        assertEquals(100, board.size(tall));
+        assertEquals(200, board.size(board.index(1, 1)));
+        assertTrue(board.remove(tall, Element.ENTITY_ROCK));
+        assertEquals(Board.fromCells(board.toCells()).stateHash(), board.stateHash());
+        assertTrue(Board.decode(2, 3, board.encode()).sameContent(board));
+    }
+
+    @Test
+    void testMoveAndReplaceKeepOrder() {
+        Board board = new Board(1, 2);
+        int from = board.index(0, 0);
+        int to = board.index(0, 1);
+        board.add(from, Element.EMPTY);
+        board.add(from, Element.ROCK);
+        board.add(from, Element.ENTITY_ROCK);
+        board.add(from, Element.IS);
+        board.add(to, Element.EMPTY);
+
+        board.moveElements(from, to, element -> element.getWord() != null);
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_ROCK), board.toCellule(from).getElements());
+        assertEquals(List.of(Element.EMPTY, Element.ROCK, Element.IS), board.toCellule(to).getElements());
+
+        board.add(from, Element.ENTITY_BABA);
+        board.replaceAll(from, Element.ENTITY_ROCK, Element.ENTITY_WALL);
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_BABA, Element.ENTITY_WALL), board.toCellule(from).getElements());
+    }
+
+    @Test
+    void testOccupancyFollowsMutations() {
+        Board board = new Board(2, 2);
+        int a = board.index(0, 0);
+        int b = board.index(1, 1);
+        board.add(a, Element.ENTITY_ROCK);
+        board.add(a, Element.ENTITY_ROCK);
+        board.add(b, Element.ENTITY_LAVA);
+
+        assertEquals(BitSet.valueOf(new long[] { 1L << a | 1L << b }),
+                board.cellsContaining(Element.ENTITY_ROCK, Element.ENTITY_LAVA));
+
+        // One rock is left in the cell, so it is still occupied
+        board.remove(a, Element.ENTITY_ROCK);
+        assertTrue(board.contains(a, Element.ENTITY_ROCK));
+        board.remove(a, Element.ENTITY_ROCK);
+        assertFalse(board.contains(a, Element.ENTITY_ROCK));
+        assertFalse(board.isPresent(Element.ENTITY_ROCK));
+
+        board.replaceAll(b, Element.ENTITY_LAVA, Element.ENTITY_WATER);
+        assertFalse(board.isPresent(Element.ENTITY_LAVA));
+        assertTrue(board.contains(b, Element.ENTITY_WATER));
+
+        board.clear(b);
+        assertTrue(board.cellsContaining(Element.values()).isEmpty());
+    }
+
+    @Test
+    void testPositionsMatchOccupancy() {
+        Random random = new Random(7);
+        Element[] elements = { Element.EMPTY, Element.ENTITY_BABA, Element.ENTITY_ROCK, Element.ROCK, Element.IS };
+        Board board = new Board(4, 5);
+        for (int step = 0; step < 2000; step++) {
+            int index = random.nextInt(board.getCellCount());
+            Element element = elements[random.nextInt(elements.length)];
+            switch (random.nextInt(6)) {
+                case 0, 1 -> board.add(index, element);
+                case 2 -> board.remove(index, element);
+                case 3 -> board.moveElements(index, (index + 1 + random.nextInt(board.getCellCount() - 1))
+                        % board.getCellCount(), e -> e == element);
+                case 4 -> board.removeOneOfEach(index, e -> e != Element.EMPTY);
+                default -> board.replaceAll(index, element, elements[random.nextInt(elements.length)]);
+            }
+            if (random.nextInt(50) == 0) {
+                board.clear(index);
+            }
+            for (Element e : elements) {
+                assertArrayEquals(board.cellsContaining(e).stream().toArray(), board.cellsOf(e), "step " + step);
+            }
+        }
+        assertArrayEquals(board.cellsContaining(elements).stream().toArray(), board.cellsOf(elements));
+        assertArrayEquals(board.cellsOf(Element.ENTITY_BABA), board.copy().cellsOf(Element.ENTITY_BABA));
+    }
+
+    @Test
+    void testRemovalFromTheMiddleOfAPositionList() {
+        Board board = new Board(1, 6);
+        for (int i = 0; i < 5; i++) {
+            board.add(i, Element.ENTITY_ROCK);
+        }
+        // Removals from the middle of the list, including the cell that was last added
+        board.remove(2, Element.ENTITY_ROCK);
+        assertArrayEquals(new int[] { 0, 1, 3, 4 }, board.cellsOf(Element.ENTITY_ROCK));
+        board.remove(4, Element.ENTITY_ROCK);
+        assertArrayEquals(new int[] { 0, 1, 3 }, board.cellsOf(Element.ENTITY_ROCK));
+
+        Board copy = board.copy();
+        copy.moveElements(0, 5, e -> e == Element.ENTITY_ROCK);
+        copy.remove(3, Element.ENTITY_ROCK);
+        assertArrayEquals(new int[] { 1, 5 }, copy.cellsOf(Element.ENTITY_ROCK));
+        assertArrayEquals(new int[] { 0, 1, 3 }, board.cellsOf(Element.ENTITY_ROCK));
+
+        board.add(2, Element.ENTITY_ROCK);
+        board.remove(1, Element.ENTITY_ROCK);
+        board.remove(0, Element.ENTITY_ROCK);
+        assertArrayEquals(new int[] { 2, 3 }, board.cellsOf(Element.ENTITY_ROCK));
+    }
+
+    @Test
+    void testPositionsOfACommonElement() {
+        Random random = new Random(3);
+        Board board = new Board(64, 64);
+        for (int step = 0; step < 20000; step++) {
+            int index = random.nextInt(board.getCellCount());
+            // Fills most of the board, then empties it again
+            if (step < 10000 ? random.nextInt(4) != 0 : random.nextInt(4) == 0) {
+                board.add(index, Element.ENTITY_WALL);
+            } else {
+                board.remove(index, Element.ENTITY_WALL);
+            }
+            if (step % 500 == 0) {
+                assertArrayEquals(board.cellsContaining(Element.ENTITY_WALL).stream().toArray(),
+                        board.cellsOf(Element.ENTITY_WALL), "step " + step);
+            }
+        }
+        for (int i = 0; i < board.getCellCount(); i++) {
+            board.clear(i);
+        }
+        assertEquals(0, board.cellsOf(Element.ENTITY_WALL).length);
+    }
+
+    @Test
+    void testEmptyCellsAreFoundWithoutAList() {
+        Board board = new Board(2, 2);
+        board.add(0, Element.EMPTY);
+        board.add(3, Element.EMPTY);
+        board.add(3, Element.ENTITY_BABA);
+        assertArrayEquals(new int[] { 0, 3 }, board.cellsOf(Element.EMPTY));
+        assertArrayEquals(new int[] { 0, 3 }, board.cellsOf(Element.EMPTY, Element.ENTITY_BABA));
+        board.clear(0);
+        assertArrayEquals(new int[] { 3 }, board.cellsOf(Element.EMPTY));
+    }
+
+    @Test
+    void testStateHashFollowsContent() {
+        Random random = new Random(11);
+        Element[] elements = { Element.EMPTY, Element.ENTITY_BABA, Element.ENTITY_ROCK, Element.ROCK, Element.IS };
+        Board board = new Board(3, 4);
+        assertEquals(0L, board.stateHash());
+        for (int step = 0; step < 2000; step++) {
+            int index = random.nextInt(board.getCellCount());
+            Element element = elements[random.nextInt(elements.length)];
+            switch (random.nextInt(6)) {
+                case 0, 1 -> board.add(index, element);
+                case 2 -> board.remove(index, element);
+                case 3 -> board.moveElements(index, (index + 1 + random.nextInt(board.getCellCount() - 1))
+                        % board.getCellCount(), e -> e == element);
+                case 4 -> board.removeOneOfEach(index, e -> e != Element.EMPTY);
+                default -> board.replaceAll(index, element, elements[random.nextInt(elements.length)]);
+            }
+            if (random.nextInt(50) == 0) {
+                board.clear(index);
+            }
+            // The incremental hash is the one of a board built from scratch with the same content
+            assertEquals(Board.fromCells(board.toCells()).stateHash(), board.stateHash(), "step " + step);
+        }
+
+        // The order of the elements within a cell does not matter, their number does
+        Board a = new Board(1, 1);
+        a.add(0, Element.ENTITY_ROCK);
+        a.add(0, Element.ENTITY_BABA);
+        Board b = new Board(1, 1);
+        b.add(0, Element.ENTITY_BABA);
+        b.add(0, Element.ENTITY_ROCK);
+        assertEquals(a.stateHash(), b.stateHash());
+        b.add(0, Element.ENTITY_ROCK);
+        assertNotEquals(a.stateHash(), b.stateHash());
+        b.remove(0, Element.ENTITY_ROCK);
+        assertEquals(a.stateHash(), b.stateHash());
+
+        // A pair of the same element does not cancel out
+        Board pair = new Board(1, 1);
+        pair.add(0, Element.ENTITY_ROCK);
+        pair.add(0, Element.ENTITY_ROCK);
+        assertNotEquals(0L, pair.stateHash());
+        pair.clear(0);
+        assertEquals(0L, pair.stateHash());
+    }
+}
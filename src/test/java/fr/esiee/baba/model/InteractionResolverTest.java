@@ -0,0 +1,171 @@
+package fr.esiee.baba.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+class InteractionResolverTest {
+
+    private static final Element[] ENTITIES = {
+            Element.ENTITY_BABA, Element.ENTITY_FLAG, Element.ENTITY_WALL, Element.ENTITY_WATER,
+            Element.ENTITY_SKULL, Element.ENTITY_LAVA, Element.ENTITY_ROCK
+    };
+    private static final Element[] NOUNS = {
+            Element.BABA, Element.FLAG, Element.WALL, Element.WATER, Element.SKULL, Element.LAVA, Element.ROCK
+    };
+    private static final Element[] PROPERTIES = {
+            Element.YOU, Element.MELT, Element.HOT, Element.DEFEAT, Element.SINK, Element.PUSH
+    };
+
+    @Test
+    void testSinglePassMatchesSuccessivePasses() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            Level template = randomLevel(random);
+            Level expected = template.copy();
+            Level actual = template.copy();
+            // Words added after the rules were read, as a move would leave them
+            for (int i = 0; i < 3; i++) {
+                int index = random.nextInt(template.getBoard().getCellCount());
+                Element word = random.nextBoolean() ? pick(random, NOUNS) : pick(random, PROPERTIES);
+                expected.getBoard().add(index, word);
+                actual.getBoard().add(index, word);
+            }
+
+            Transmutation transmutation = new Transmutation(expected, expected.getRules());
+            transmutation.checkMelt();
+            transmutation.checkDefeat();
+            transmutation.checkSink();
+            boolean expectedChange = expected.getRules().refresh(expected);
+            for (var entry : expected.getRules().getTransformationRules().entrySet()) {
+                transmutation.applyTransformation(entry.getKey(), entry.getValue());
+            }
+
+            boolean actualChange = new InteractionResolver(actual, actual.getRules()).resolve(null);
+
+            assertTrue(expected.getBoard().sameContent(actual.getBoard()), "run " + run);
+            assertEquals(expectedChange, actualChange, "run " + run);
+            assertEquals(expected.getRules().getTransformationRules(), actual.getRules().getTransformationRules());
+        }
+    }
+
+    @Test
+    void testScopedPassMatchesSuccessiveScopedPasses() {
+        Random random = new Random(7);
+        for (int run = 0; run < 500; run++) {
+            Level template = randomLevel(random);
+            Level expected = template.copy();
+            Level actual = template.copy();
+            BitSet scope = new BitSet();
+            for (int i = 0; i < 4; i++) {
+                scope.set(random.nextInt(template.getBoard().getCellCount()));
+            }
+
+            Transmutation transmutation = new Transmutation(expected, expected.getRules());
+            transmutation.checkMelt(scope);
+            transmutation.checkDefeat(scope);
+            transmutation.checkSink(scope);
+            boolean expectedChange = expected.getRules().refresh(expected);
+            for (var entry : expected.getRules().getTransformationRules().entrySet()) {
+                transmutation.applyTransformation(entry.getKey(), entry.getValue());
+            }
+
+            boolean actualChange = new InteractionResolver(actual, actual.getRules()).resolve(scope);
+
+            assertTrue(expected.getBoard().sameContent(actual.getBoard()), "run " + run);
+            assertEquals(expectedChange, actualChange, "run " + run);
+        }
+    }
+
+    @Test
+    void testScopeLeavesOtherCellsAlone() {
+        // | ROCK | IS | SINK |
+        // | rock | .  | rock |
+        // both rocks share their cell with baba, only the first one is in the scope
+        Board board = new Board(2, 3);
+        for (int i = 0; i < board.getCellCount(); i++) {
+            board.add(i, Element.EMPTY);
+        }
+        board.add(board.index(0, 0), Element.ROCK);
+        board.add(board.index(0, 1), Element.IS);
+        board.add(board.index(0, 2), Element.SINK);
+        for (int y : new int[] { 0, 2 }) {
+            board.add(board.index(1, y), Element.ENTITY_ROCK);
+            board.add(board.index(1, y), Element.ENTITY_BABA);
+        }
+        Level level = new Level(board, "scope.txt");
+        BitSet scope = new BitSet();
+        scope.set(board.index(1, 0));
+
+        new InteractionResolver(level, level.getRules()).resolve(scope);
+
+        assertEquals(List.of(Element.EMPTY), level.getBoard().toCellule(board.index(1, 0)).getElements());
+        assertEquals(List.of(Element.EMPTY, Element.ENTITY_ROCK, Element.ENTITY_BABA),
+                level.getBoard().toCellule(board.index(1, 2)).getElements());
+    }
+
+    @Test
+    void testSinkingWordsDisablesTheirTransformation() {
+        // | ROCK  | IS | FLAG  |
+        // | rock  | .  | .     |
+        // | WATER | IS | SINK  |
+        // water then lands on FLAG: the word sinks with it, so ROCK IS FLAG no longer applies
+        Board board = new Board(3, 3);
+        for (int i = 0; i < board.getCellCount(); i++) {
+            board.add(i, Element.EMPTY);
+        }
+        board.add(board.index(0, 0), Element.ROCK);
+        board.add(board.index(0, 1), Element.IS);
+        board.add(board.index(0, 2), Element.FLAG);
+        board.add(board.index(1, 0), Element.ENTITY_ROCK);
+        board.add(board.index(2, 0), Element.WATER);
+        board.add(board.index(2, 1), Element.IS);
+        board.add(board.index(2, 2), Element.SINK);
+        Level level = new Level(board, "sink.txt");
+
+        board.add(board.index(0, 2), Element.ENTITY_WATER);
+        new InteractionResolver(level, level.getRules()).resolve(null);
+
+        assertEquals(List.of(Element.EMPTY), level.getBoard().toCellule(board.index(0, 2)).getElements());
+        assertTrue(level.getBoard().contains(board.index(1, 0), Element.ENTITY_ROCK));
+    }
+
+    private static Level randomLevel(Random random) {
+        int height = 3 + random.nextInt(5);
+        int width = 3 + random.nextInt(5);
+        List<List<Cellule>> grid = new ArrayList<>();
+        for (int x = 0; x < height; x++) {
+            List<Cellule> row = new ArrayList<>();
+            for (int y = 0; y < width; y++) {
+                Cellule cell = new Cellule();
+                cell.addElement(Element.EMPTY);
+                int count = random.nextInt(4);
+                for (int k = 0; k < count; k++) {
+                    cell.addElement(random.nextInt(4) == 0 ? pick(random, NOUNS) : pick(random, ENTITIES));
+                }
+                row.add(cell);
+            }
+            grid.add(row);
+        }
+        // A few sentences, horizontal or vertical
+        int sentences = 1 + random.nextInt(6);
+        for (int i = 0; i < sentences; i++) {
+            boolean horizontal = random.nextBoolean();
+            int x = random.nextInt(horizontal ? height : height - 2);
+            int y = random.nextInt(horizontal ? width - 2 : width);
+            Element rhs = random.nextBoolean() ? pick(random, PROPERTIES) : pick(random, NOUNS);
+            grid.get(x).get(y).addElement(pick(random, NOUNS));
+            grid.get(horizontal ? x : x + 1).get(horizontal ? y + 1 : y).addElement(Element.IS);
+            grid.get(horizontal ? x : x + 2).get(horizontal ? y + 2 : y).addElement(rhs);
+        }
+        return new Level(grid, "random.txt");
+    }
+
+    private static Element pick(Random random, Element[] elements) {
+        return elements[random.nextInt(elements.length)];
+    }
+}
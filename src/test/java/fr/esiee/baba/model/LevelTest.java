@@ -71,6 +71,163 @@ class LevelTest {
         assertTrue(level.getGrid().get(1).get(1).contains(Element.ENTITY_BABA));
     }
 
+    @Test
+    void testCopyIsIndependent() {
+        List<List<Cellule>> grid = new ArrayList<>();
+        List<Cellule> r0 = new ArrayList<>();
+        r0.add(createCell(Element.BABA));
+        r0.add(createCell(Element.IS));
+        r0.add(createCell(Element.YOU));
+        grid.add(r0);
+        List<Cellule> r1 = new ArrayList<>();
+        r1.add(createCell(Element.ENTITY_BABA));
+        r1.add(createCell(Element.EMPTY));
+        r1.add(createCell(Element.EMPTY));
+        grid.add(r1);
+
+        Level template = new Level(grid, "template.txt");
+        Level copy = template.copy();
+        copy.update(Direction.RIGHT, false);
+
+        // The copy moved, the template did not
+        assertTrue(copy.getGrid().get(1).get(1).contains(Element.ENTITY_BABA));
+        assertTrue(template.getGrid().get(1).get(0).contains(Element.ENTITY_BABA));
+        assertFalse(template.getGrid().get(1).get(1).contains(Element.ENTITY_BABA));
+    }
+
+    @Test
+    void testNewRuleAppliesToCellsThatDidNotMove() {
+        // | BABA | IS | YOU  | .    | .    |
+        // | WATER| IS | .    | SINK | baba |
+        // | rock+water | . | . | .  | .    |
+        List<List<Cellule>> grid = new ArrayList<>();
+        List<Cellule> r0 = new ArrayList<>();
+        r0.add(createCell(Element.BABA));
+        r0.add(createCell(Element.IS));
+        r0.add(createCell(Element.YOU));
+        r0.add(createCell(Element.EMPTY));
+        r0.add(createCell(Element.EMPTY));
+        grid.add(r0);
+        List<Cellule> r1 = new ArrayList<>();
+        r1.add(createCell(Element.WATER));
+        r1.add(createCell(Element.IS));
+        r1.add(createCell(Element.EMPTY));
+        r1.add(createCell(Element.SINK));
+        r1.add(createCell(Element.ENTITY_BABA));
+        grid.add(r1);
+        List<Cellule> r2 = new ArrayList<>();
+        Cellule stacked = createCell(Element.EMPTY);
+        stacked.addElement(Element.ENTITY_ROCK);
+        stacked.addElement(Element.ENTITY_WATER);
+        r2.add(stacked);
+        for (int i = 0; i < 4; i++) {
+            r2.add(createCell(Element.EMPTY));
+        }
+        grid.add(r2);
+
+        Level level = new Level(grid, "sink.txt");
+
+        // Pushing SINK completes WATER IS SINK; the rule only bites on the next move
+        level.update(Direction.LEFT, false);
+        assertTrue(level.getGrid().get(2).get(0).contains(Element.ENTITY_ROCK));
+
+        // The stacked cell did not change, but the new rule must still reach it
+        level.update(Direction.RIGHT, false);
+        assertEquals(List.of(Element.EMPTY), level.getGrid().get(2).get(0).getElements());
+    }
+
+    @Test
+    void testLongPushChains() {
+        // | BABA | IS | YOU  | ROCK | IS   | PUSH | WALL | IS | STOP |
+        // | baba | rock x 6                       | .    | .  | .    |
+        // | baba | rock x 6                       | wall | .  | .    |
+        List<List<Cellule>> grid = new ArrayList<>();
+        List<Cellule> r0 = new ArrayList<>();
+        for (Element e : new Element[] { Element.BABA, Element.IS, Element.YOU, Element.ROCK, Element.IS,
+                Element.PUSH, Element.WALL, Element.IS, Element.STOP }) {
+            r0.add(createCell(e));
+        }
+        grid.add(r0);
+        for (int x = 1; x <= 2; x++) {
+            List<Cellule> row = new ArrayList<>();
+            row.add(createCell(Element.ENTITY_BABA));
+            for (int y = 1; y <= 6; y++) {
+                row.add(createCell(Element.ENTITY_ROCK));
+            }
+            row.add(createCell(x == 2 ? Element.ENTITY_WALL : Element.EMPTY));
+            row.add(createCell(Element.EMPTY));
+            row.add(createCell(Element.EMPTY));
+            grid.add(row);
+        }
+
+        Level level = new Level(grid, "chains.txt");
+        level.update(Direction.RIGHT, false);
+
+        // The free run moved as a whole, the blocked one did not move at all
+        List<List<Cellule>> cells = level.getGrid();
+        assertTrue(cells.get(1).get(1).contains(Element.ENTITY_BABA));
+        assertFalse(cells.get(1).get(1).contains(Element.ENTITY_ROCK));
+        assertTrue(cells.get(1).get(7).contains(Element.ENTITY_ROCK));
+        assertTrue(cells.get(2).get(0).contains(Element.ENTITY_BABA));
+        assertTrue(cells.get(2).get(6).contains(Element.ENTITY_ROCK));
+        assertFalse(cells.get(2).get(7).contains(Element.ENTITY_ROCK));
+    }
+
+    @Test
+    void testUndoRevertsMovesAndRules() {
+        // | BABA | IS | YOU  | .    |
+        // | FLAG | IS | WIN  | .    |
+        // | baba | .  | ROCK | .    |
+        List<List<Cellule>> grid = new ArrayList<>();
+        List<Cellule> r0 = new ArrayList<>();
+        r0.add(createCell(Element.BABA));
+        r0.add(createCell(Element.IS));
+        r0.add(createCell(Element.YOU));
+        r0.add(createCell(Element.EMPTY));
+        grid.add(r0);
+        List<Cellule> r1 = new ArrayList<>();
+        r1.add(createCell(Element.FLAG));
+        r1.add(createCell(Element.IS));
+        r1.add(createCell(Element.WIN));
+        r1.add(createCell(Element.EMPTY));
+        grid.add(r1);
+        List<Cellule> r2 = new ArrayList<>();
+        r2.add(createCell(Element.ENTITY_BABA));
+        r2.add(createCell(Element.EMPTY));
+        r2.add(createCell(Element.ROCK));
+        r2.add(createCell(Element.EMPTY));
+        grid.add(r2);
+
+        Level level = new Level(grid, "undo.txt");
+        List<List<List<Cellule>>> history = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        Direction[] moves = { Direction.RIGHT, Direction.UP, Direction.LEFT, Direction.LEFT, Direction.DOWN };
+        for (Direction move : moves) {
+            history.add(level.getGrid());
+            hashes.add(level.stateHash());
+            level.update(move, false);
+        }
+        assertEquals(moves.length, level.getUndoDepth());
+
+        // Walk back through every state, rules included
+        for (int i = moves.length - 1; i >= 0; i--) {
+            assertTrue(level.undo());
+            assertEquals(Board.fromCells(history.get(i)).toCells().toString(), level.getGrid().toString());
+            assertEquals((long) hashes.get(i), level.stateHash());
+            Rules fresh = new Rules(level);
+            assertEquals(fresh.getTransformationRules(), level.getRules().getTransformationRules());
+            for (Property property : Property.values()) {
+                assertArrayEquals(fresh.getElementsWithProperty(property),
+                        level.getRules().getElementsWithProperty(property));
+            }
+        }
+        assertFalse(level.undo());
+
+        // The level still plays normally after undoing
+        level.update(Direction.RIGHT, false);
+        assertTrue(level.getGrid().get(2).get(1).contains(Element.ENTITY_BABA));
+    }
+
     private Cellule createCell(Element e) {
         Cellule c = new Cellule();
         if (e != null)
@@ -79,4 +236,32 @@ class LevelTest {
             c.addElement(Element.EMPTY);
         return c;
     }
+
+    @Test
+    void testManyEntitiesPileUpAgainstAnEdge() {
+        // | BABA | IS | YOU | . ... |
+        // | BABA | BABA | ... | BABA |
+        int width = 200;
+        Board board = new Board(2, width);
+        board.add(board.index(0, 0), Element.BABA);
+        board.add(board.index(0, 1), Element.IS);
+        board.add(board.index(0, 2), Element.YOU);
+        for (int y = 0; y < width; y++) {
+            board.add(board.index(1, y), Element.ENTITY_BABA);
+        }
+        Level level = new Level(board, "pile.txt");
+
+        for (int i = 0; i < width; i++) {
+            level.update(Direction.RIGHT, false);
+        }
+        Board result = level.getBoard();
+        assertEquals(width, result.size(result.index(1, width - 1)));
+
+        // The tall stack is journaled and restored like the others
+        assertTrue(level.undo());
+        assertEquals(width, result.size(result.index(1, width - 1)));
+        assertTrue(level.undo());
+        assertEquals(width - 1, result.size(result.index(1, width - 1)));
+        assertEquals(1, result.size(result.index(1, width - 2)));
+    }
 }
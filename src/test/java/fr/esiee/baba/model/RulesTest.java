@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 class RulesTest {
 
@@ -35,4 +36,43 @@ class RulesTest {
         assertTrue(rules.hasProperty(Set.of(Element.ENTITY_BABA), Property.YOU),
                 "BABA entity should have YOU property");
     }
+
+    @Test
+    void testIncrementalRefreshFollowsPushedWords() {
+        // Row 0: . . .
+        // Row 1: BABA IS YOU
+        // Row 2: . baba .
+        List<List<Cellule>> grid = new ArrayList<>();
+        grid.add(row(Element.EMPTY, Element.EMPTY, Element.EMPTY));
+        grid.add(row(Element.BABA, Element.IS, Element.YOU));
+        grid.add(row(Element.EMPTY, Element.ENTITY_BABA, Element.EMPTY));
+
+        Level level = new Level(grid, "dummy.txt");
+        Rules rules = level.getRules();
+        assertTrue(rules.hasProperty(Element.ENTITY_BABA, Property.YOU));
+
+        // Nothing changed since the rules were derived
+        assertFalse(rules.refresh(level));
+
+        // Moving right pushes no word: the rule set is kept
+        level.update(Direction.RIGHT, false);
+        assertTrue(rules.hasProperty(Element.ENTITY_BABA, Property.YOU));
+
+        // Moving left then up pushes IS out of the sentence
+        level.update(Direction.LEFT, false);
+        level.update(Direction.UP, false);
+        assertFalse(rules.hasProperty(Element.ENTITY_BABA, Property.YOU));
+        assertEquals(0, rules.getElementsWithProperty(Property.YOU).length);
+        assertTrue(level.getGrid().get(0).get(1).contains(Element.IS));
+    }
+
+    private List<Cellule> row(Element... elements) {
+        List<Cellule> row = new ArrayList<>();
+        for (Element element : elements) {
+            Cellule cell = new Cellule();
+            cell.addElement(element);
+            row.add(cell);
+        }
+        return row;
+    }
 }
@@ -0,0 +1,73 @@
+package fr.esiee.baba.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class UndoJournalTest {
+
+    @Test
+    void testOnlyTouchedCellsAreRecorded() {
+        Board board = new Board(10, 10);
+        UndoJournal journal = new UndoJournal(UndoJournal.DEFAULT_BUDGET_BYTES);
+        board.setJournal(journal);
+
+        board.add(board.index(0, 0), Element.EMPTY); // outside of a step, not recorded
+        journal.beginStep();
+        board.add(board.index(0, 0), Element.ENTITY_ROCK);
+        board.add(board.index(0, 0), Element.ENTITY_BABA);
+        board.moveElements(board.index(0, 0), board.index(0, 1), e -> e == Element.ENTITY_ROCK);
+        journal.endStep();
+
+        // Two cells, each saved once with the stack it had before the step
+        assertEquals(1, journal.size());
+        assertEquals(5 + 1 + 5 + UndoJournal.STEP_OVERHEAD_BYTES, journal.getRecordedBytes());
+
+        assertTrue(journal.undo(board));
+        assertEquals(List.of(Element.EMPTY), board.toCellule(board.index(0, 0)).getElements());
+        assertEquals(0, board.size(board.index(0, 1)));
+        assertFalse(board.isPresent(Element.ENTITY_ROCK));
+        assertFalse(journal.undo(board));
+    }
+
+    @Test
+    void testOldestStepsAreDroppedOverBudget() {
+        Board board = new Board(1, 100);
+        // Each step saves one empty cell: 5 bytes and the overhead of a step
+        int step = 5 + UndoJournal.STEP_OVERHEAD_BYTES;
+        UndoJournal journal = new UndoJournal(12 * step + UndoJournal.STEP_OVERHEAD_BYTES);
+        board.setJournal(journal);
+        for (int i = 0; i < 20; i++) {
+            journal.beginStep();
+            board.add(i, Element.ENTITY_WALL);
+            journal.endStep();
+        }
+        assertEquals(12, journal.size());
+        assertEquals(12 * step, journal.getRecordedBytes());
+
+        // Empty steps are kept so that each move is undone on its own
+        journal.beginStep();
+        journal.endStep();
+        assertEquals(13, journal.size());
+        assertTrue(journal.undo(board));
+        assertTrue(board.contains(19, Element.ENTITY_WALL));
+        assertTrue(journal.undo(board));
+        assertFalse(board.contains(19, Element.ENTITY_WALL));
+    }
+
+    @Test
+    void testStepsChangingNothingStayWithinBudget() {
+        // No YOU on the board: every move changes nothing
+        Board board = new Board(3, 3);
+        for (int i = 0; i < board.getCellCount(); i++) {
+            board.add(i, Element.EMPTY);
+        }
+        Level level = new Level(board, "still.txt");
+        for (int i = 0; i < 100000; i++) {
+            level.update(Direction.values()[i % Direction.values().length], false);
+        }
+        assertEquals(UndoJournal.DEFAULT_BUDGET_BYTES / UndoJournal.STEP_OVERHEAD_BYTES, level.getUndoDepth());
+        assertTrue(level.undo());
+    }
+}
@@ -0,0 +1,75 @@
+package fr.esiee.baba.solver;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+class SolverTest {
+
+    private static final List<String> SIMPLE = List.of(
+            "b i y - - ",
+            "f i v - - ",
+            "- - - - - ",
+            "B - - - F ");
+
+    @Test
+    void testBreadthFirstFindsShortestSolution() {
+        Level level = Game.parseLevel(SIMPLE, "simple.txt");
+        Solution solution = new Solver(new ForkJoinPool(2), Solver.Mode.BFS, 10_000).solve(level);
+
+        assertTrue(solution.solved());
+        assertEquals(List.of(Direction.RIGHT, Direction.RIGHT, Direction.RIGHT, Direction.RIGHT), solution.moves());
+        assertEquals("RRRR", solution.movesAsString());
+        // The level given to the solver is left as it was
+        assertTrue(level.getGrid().get(3).get(0).contains(Element.ENTITY_BABA));
+    }
+
+    @Test
+    void testAStarSolutionReplaysToWin() {
+        Level level = Game.parseLevel(SIMPLE, "simple.txt");
+        Solution solution = new Solver(new ForkJoinPool(2), Solver.Mode.ASTAR, 10_000).solve(level);
+
+        assertTrue(solution.solved());
+        for (Direction move : solution.moves()) {
+            level.update(move, false);
+        }
+        assertTrue(level.isCompleted());
+    }
+
+    @Test
+    void testSolutionDoesNotDependOnParallelism() {
+        // Many shortest paths lead to the flag: the one found must not depend on which worker reaches a state first
+        List<String> lines = List.of(
+                "b i y - - - ",
+                "f i v - - - ",
+                "- - - - - - ",
+                "B - - - - - ",
+                "- - - - - - ",
+                "- - - - - F ");
+        Solution reference = new Solver(new ForkJoinPool(1), Solver.Mode.BFS, 10_000)
+                .solve(Game.parseLevel(lines, "grid.txt"));
+        assertTrue(reference.solved());
+        for (int i = 0; i < 5; i++) {
+            Solution solution = new Solver(new ForkJoinPool(4), Solver.Mode.BFS, 10_000)
+                    .solve(Game.parseLevel(lines, "grid.txt"));
+            assertEquals(reference.moves(), solution.moves());
+            assertEquals(reference.statesVisited(), solution.statesVisited());
+        }
+    }
+
+    @Test
+    void testLevelWithoutWinIsExhausted() {
+        Level level = Game.parseLevel(List.of("b i y ", "- - - ", "B - - "), "nowin.txt");
+        Solution solution = new Solver(new ForkJoinPool(2), Solver.Mode.BFS, 10_000).solve(level);
+
+        assertFalse(solution.solved());
+        assertTrue(solution.exhausted());
+        assertTrue(solution.moves().isEmpty());
+    }
+}
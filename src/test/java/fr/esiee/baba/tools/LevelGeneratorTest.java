@@ -0,0 +1,76 @@
+package fr.esiee.baba.tools;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Board;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.model.Property;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class LevelGeneratorTest {
+
+    @Test
+    void testSameSeedGivesSameLevel() {
+        var settings = new LevelGenerator.Settings(40, 60, 42, 0.05, 12, 3, 0.25, 0.5);
+        List<String> first = LevelGenerator.generate(settings);
+
+        assertEquals(first, LevelGenerator.generate(settings));
+        assertNotEquals(first, LevelGenerator.generate(new LevelGenerator.Settings(40, 60, 43, 0.05, 12, 3, 0.25, 0.5)));
+    }
+
+    @Test
+    void testGeneratedLevelFollowsSettings() {
+        var settings = new LevelGenerator.Settings(64, 48, 7, 0.05, 20, 5, 0.3, 0.4);
+        List<String> lines = LevelGenerator.generate(settings);
+        Level level = Game.parseLevel(lines, "generated.txt");
+        Board board = level.getBoard();
+
+        assertEquals(64, board.getHeight());
+        assertEquals(48, board.getWidth());
+        // The only rules are the sentences, so the YOU entities are exactly the BABA entities
+        assertEquals(5, board.cellsOf(level.getRules().getElementsWithProperty(Property.YOU)).length);
+        assertEquals(5, board.cellsOf(Element.ENTITY_BABA).length);
+        assertTrue(level.getRules().hasProperty(Element.ENTITY_ROCK, Property.PUSH));
+        assertTrue(level.getRules().hasProperty(Element.ENTITY_FLAG, Property.WIN));
+        assertEquals(20, board.cellsOf(Element.IS).length);
+
+        int cells = 64 * 48;
+        int entities = (int) Math.round(0.3 * cells);
+        assertEquals(Math.round(0.4 * (entities - 5)), board.cellsOf(Element.ENTITY_ROCK).length);
+        long words = 0;
+        long placedEntities = 0;
+        for (String line : lines) {
+            for (String token : line.split(" ")) {
+                Element element = Game.stringToElement(token);
+                if (element.getWord() != null) {
+                    words++;
+                } else if (element != Element.EMPTY) {
+                    placedEntities++;
+                }
+            }
+        }
+        assertEquals(Math.round(0.05 * cells), words);
+        assertEquals(entities, placedEntities);
+    }
+
+    @Test
+    void testLargeLevelsAreGenerated() {
+        List<String> lines = LevelGenerator.generate(LevelGenerator.Settings.of(1024, 1024, 1));
+
+        assertEquals(1024, lines.size());
+        assertEquals(2 * 1024, lines.get(0).length());
+        Level level = Game.parseLevel(lines, "generated-1024x1024");
+        assertEquals(1, level.getYouElements().size());
+    }
+
+    @Test
+    void testOverfullLevelIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LevelGenerator.generate(new LevelGenerator.Settings(10, 10, 1, 0.6, 3, 1, 0.6, 0.5)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LevelGenerator.Settings(10, 10, 1, 0.1, 0, 1, 0.2, 0));
+    }
+}
@@ -0,0 +1,243 @@
+package fr.esiee.baba.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Cellule;
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class FrameEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testDeltasRebuildTheGrid() throws Exception {
+        Random random = new Random(11);
+        for (Level level : new LevelCatalog(new PathMatchingResourcePatternResolver()).newLevels()) {
+            FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+            ClientView view = new ClientView();
+            view.apply(frame(encoder, level));
+            assertTrue(view.keyframes == 1);
+
+            for (int step = 0; step < 150; step++) {
+                if (random.nextInt(5) == 0) {
+                    level.undo();
+                } else {
+                    level.update(Direction.values()[random.nextInt(4)], false);
+                }
+                view.apply(frame(encoder, level));
+                assertEquals(names(level.getGrid()), view.stacks, level.getLevelFilePath() + " step " + step);
+            }
+            // Besides the first one, a keyframe every KEYFRAME_INTERVAL frames
+            assertEquals(1 + 150 / (FrameEncoder.KEYFRAME_INTERVAL + 1), view.keyframes);
+        }
+    }
+
+    @Test
+    void testDeltaOnlyHoldsChangedCells() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y - ", "- - B - "), "small.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+        frame(encoder, level);
+
+        level.update(Direction.RIGHT, false);
+        JsonNode delta = frame(encoder, level);
+
+        assertEquals("delta", delta.get("type").asText());
+        assertEquals(2, delta.get("seq").asLong());
+        assertEquals("[6,7]", delta.get("cells").toString());
+        assertEquals("[[\"EMPTY\"],[\"EMPTY\",\"ENTITY_BABA\"]]", delta.get("stacks").toString());
+    }
+
+    @Test
+    void testKeyframeOnNewBoardOrRequest() throws Exception {
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+        Level first = Game.parseLevel(List.of("b i y ", "B - - "), "first.txt");
+        Level second = Game.parseLevel(List.of("b i y - ", "B - - - "), "second.txt");
+
+        assertEquals("key", frame(encoder, first).get("type").asText());
+        assertEquals("delta", frame(encoder, first).get("type").asText());
+        JsonNode next = frame(encoder, second);
+        assertEquals("key", next.get("type").asText());
+        assertEquals(4, next.get("width").asInt());
+        assertEquals(3, next.get("seq").asLong());
+        encoder.requestKeyframe();
+        assertEquals("key", frame(encoder, second).get("type").asText());
+        assertEquals("delta", frame(encoder, second).get("type").asText());
+    }
+
+    @Test
+    void testProtocolIsNegotiatedFromAddress() {
+        assertEquals(FrameProtocol.JSON, FrameProtocol.fromUri(URI.create("ws://localhost/game-ws")));
+        assertEquals(FrameProtocol.DELTA, FrameProtocol.fromUri(URI.create("ws://localhost/game-ws?protocol=delta")));
+        assertEquals(FrameProtocol.DELTA, FrameProtocol.fromUri(URI.create("ws://localhost/game-ws?a=1&protocol=DELTA")));
+        assertEquals(FrameProtocol.JSON, FrameProtocol.fromUri(URI.create("ws://localhost/game-ws?protocol=morse")));
+        assertEquals(FrameProtocol.JSON, FrameProtocol.fromUri(null));
+    }
+
+    @Test
+    void testJsonProtocolSendsWholeGrid() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y ", "B - - "), "first.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.JSON);
+
+        TextMessage message = (TextMessage) encoder.encode(level);
+        assertEquals(objectMapper.writeValueAsString(level.getGrid()), message.getPayload());
+    }
+
+    @Test
+    void testBinaryFramesMatchDeltaFrames() throws Exception {
+        Random random = new Random(5);
+        for (Level level : new LevelCatalog(new PathMatchingResourcePatternResolver()).newLevels()) {
+            FrameEncoder encoder = new FrameEncoder(FrameProtocol.BINARY);
+            JsonNode names = objectMapper.readTree(((TextMessage) encoder.greeting()).getPayload()).get("names");
+            ClientView view = new ClientView();
+            for (int step = 0; step < 120; step++) {
+                ByteBuffer payload = ((BinaryMessage) encoder.encode(level)).getPayload();
+                // The same snapshot written as JSON is what the delta protocol would have sent
+                JsonNode frame = decode(payload, names);
+                view.apply(frame);
+                assertEquals(names(level.getGrid()), view.stacks, level.getLevelFilePath() + " step " + step);
+                level.update(Direction.values()[random.nextInt(4)], false);
+            }
+        }
+    }
+
+    @Test
+    void testBinaryFramesHoldTallStacks() throws Exception {
+        Cellule tall = new Cellule();
+        for (int i = 0; i < 200; i++) {
+            tall.addElement(Element.ENTITY_BABA);
+        }
+        Level level = new Level(List.of(List.of(new Cellule(), tall)), "tall.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.BINARY);
+        JsonNode names = objectMapper.readTree(((TextMessage) encoder.greeting()).getPayload()).get("names");
+
+        ClientView view = new ClientView();
+        view.apply(decode(((BinaryMessage) encoder.encode(level)).getPayload(), names));
+        assertEquals(names(level.getGrid()), view.stacks);
+    }
+
+    @Test
+    void testBinaryFramesAreSmaller() throws Exception {
+        Level level = new LevelCatalog(new PathMatchingResourcePatternResolver()).newLevels().get(0);
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.BINARY);
+        int binaryKeyframe = ((BinaryMessage) encoder.encode(level)).getPayloadLength();
+        int jsonGrid = objectMapper.writeValueAsString(level.getGrid()).length();
+
+        assertTrue(binaryKeyframe * 10 < jsonGrid, binaryKeyframe + " bytes against " + jsonGrid);
+    }
+
+    @Test
+    void testOpcodes() {
+        assertEquals("UP", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 1 })));
+        assertEquals("RIGHT", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 4 })));
+        assertEquals("RESYNC", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 7 })));
+        assertNull(FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 0 })));
+        assertNull(FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { -1 })));
+        assertNull(FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 1, 2 })));
+        assertNull(FrameProtocol.commandOf(ByteBuffer.wrap(new byte[0])));
+        assertEquals("MOVES:UUDLRR", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 8, 1, 1, 2, 3, 4, 4 })));
+        // Invalid or missing moves still make a command, rejected with a reply
+        assertEquals("MOVES:U?", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 8, 1, 5 })));
+        assertEquals("MOVES:", FrameProtocol.commandOf(ByteBuffer.wrap(new byte[] { 8 })));
+        assertEquals(FrameProtocol.BINARY, FrameProtocol.fromUri(URI.create("ws://localhost/game-ws?protocol=binary")));
+        assertNull(new FrameEncoder(FrameProtocol.DELTA).greeting());
+    }
+
+    /**
+     * Reads a binary frame back into the JSON form of the delta protocol, as game.js does.
+     */
+    private JsonNode decode(ByteBuffer payload, JsonNode names) throws Exception {
+        boolean keyframe = payload.get() == 1;
+        StringBuilder json = new StringBuilder("{\"type\":\"").append(keyframe ? "key" : "delta")
+                .append("\",\"seq\":").append(Integer.toUnsignedLong(payload.getInt()));
+        int count;
+        List<Integer> cells = new ArrayList<>();
+        if (keyframe) {
+            int height = payload.getShort();
+            int width = payload.getShort();
+            json.append(",\"height\":").append(height).append(",\"width\":").append(width);
+            count = height * width;
+        } else {
+            count = payload.getInt();
+        }
+        StringBuilder stacks = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (!keyframe) {
+                cells.add(payload.getInt());
+            }
+            stacks.append(i > 0 ? ",[" : "[");
+            int size = 0;
+            for (int shift = 0, b = 0x80; (b & 0x80) != 0; shift += 7) {
+                b = payload.get();
+                size |= (b & 0x7F) << shift;
+            }
+            for (int k = 0; k < size; k++) {
+                stacks.append(k > 0 ? "," : "").append(names.get(payload.get()));
+            }
+            stacks.append(']');
+        }
+        assertFalse(payload.hasRemaining());
+        if (!keyframe) {
+            json.append(",\"cells\":").append(cells.toString().replace(" ", ""));
+        }
+        return objectMapper.readTree(json.append(",\"stacks\":[").append(stacks).append("]}").toString());
+    }
+
+    private JsonNode frame(FrameEncoder encoder, Level level) throws Exception {
+        return objectMapper.readTree(((TextMessage) encoder.encode(level)).getPayload());
+    }
+
+    private static List<List<String>> names(List<List<Cellule>> grid) {
+        List<List<String>> stacks = new ArrayList<>();
+        for (List<Cellule> row : grid) {
+            for (Cellule cell : row) {
+                stacks.add(cell.getElements().stream().map(Element::name).toList());
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * What game.js keeps of the frames it receives.
+     */
+    private static class ClientView {
+        long seq;
+        int keyframes;
+        List<List<String>> stacks = new ArrayList<>();
+
+        void apply(JsonNode frame) {
+            if (frame.get("type").asText().equals("key")) {
+                keyframes++;
+                stacks = new ArrayList<>();
+                for (JsonNode stack : frame.get("stacks")) {
+                    stacks.add(toList(stack));
+                }
+            } else {
+                assertEquals(seq + 1, frame.get("seq").asLong());
+                for (int i = 0; i < frame.get("cells").size(); i++) {
+                    stacks.set(frame.get("cells").get(i).asInt(), toList(frame.get("stacks").get(i)));
+                }
+            }
+            seq = frame.get("seq").asLong();
+        }
+
+        private static List<String> toList(JsonNode stack) {
+            List<String> names = new ArrayList<>();
+            stack.forEach(name -> names.add(name.asText()));
+            return names;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package fr.esiee.baba.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+class FrameSenderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Sends run when the test says so, as if the client were slow
+    private final Queue<Runnable> sends = new ArrayDeque<>();
+    private final List<WebSocketMessage<?>> sent = new ArrayList<>();
+    private FrameStatistics statistics;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new FrameStatistics();
+        session = (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { WebSocketSession.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "sendMessage" -> sent.add((WebSocketMessage<?>) args[0]);
+                    case "isOpen" -> true;
+                    case "getId" -> "test";
+                    default -> null;
+                });
+    }
+
+    @Test
+    void testFramesWaitingAreMerged() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y - - - ", "B - - - - - ", "- - - - - - "), "small.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+        FrameSender sender = new FrameSender(session, encoder, sends::add, statistics);
+
+        sender.submit(encoder.snapshot(level));
+        runSends();
+        // Three moves while the client is busy: one frame waits, the next two are merged into it
+        for (Direction direction : List.of(Direction.RIGHT, Direction.RIGHT, Direction.DOWN)) {
+            level.update(direction, false);
+            sender.submit(encoder.snapshot(level));
+        }
+        assertEquals(1, sends.size());
+        assertEquals(1, statistics.getPendingFrames());
+        runSends();
+
+        assertEquals(2, sent.size());
+        assertEquals(2, statistics.getSentFrames());
+        assertEquals(2, statistics.getDroppedFrames());
+        assertEquals(0, statistics.getPendingFrames());
+        JsonNode key = json(0);
+        JsonNode delta = json(1);
+        assertEquals(2, delta.get("seq").asLong());
+        // The cells left by BABA and the one it ends on, in the state after the last move
+        assertEquals("[6,7,8,14]", delta.get("cells").toString());
+        assertEquals("[[\"EMPTY\"],[\"EMPTY\"],[\"EMPTY\"],[\"EMPTY\",\"ENTITY_BABA\"]]", delta.get("stacks").toString());
+        assertEquals("key", key.get("type").asText());
+    }
+
+    @Test
+    void testMergedFramesRebuildTheGrid() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y - - - ", "B - r - - - ", "- - R - i p ", "- - - - - - "),
+                "push.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+        FrameSender sender = new FrameSender(session, encoder, sends::add, statistics);
+        FrameEncoder reference = new FrameEncoder(FrameProtocol.JSON);
+
+        sender.submit(encoder.snapshot(level));
+        List<Direction> moves = List.of(Direction.RIGHT, Direction.DOWN, Direction.RIGHT, Direction.RIGHT,
+                Direction.UP, Direction.LEFT, Direction.DOWN, Direction.DOWN, Direction.RIGHT);
+        for (int i = 0; i < moves.size(); i++) {
+            level.update(moves.get(i), false);
+            sender.submit(encoder.snapshot(level));
+            if (i % 3 == 2) {
+                runSends();
+            }
+        }
+        runSends();
+
+        // Applying the frames sent gives the same stacks as the whole grid
+        List<JsonNode> stacks = new ArrayList<>();
+        long seq = 0;
+        for (int i = 0; i < sent.size(); i++) {
+            JsonNode frame = json(i);
+            assertEquals(++seq, frame.get("seq").asLong());
+            if (frame.get("type").asText().equals("key")) {
+                stacks.clear();
+                frame.get("stacks").forEach(stacks::add);
+            } else {
+                for (int k = 0; k < frame.get("cells").size(); k++) {
+                    stacks.set(frame.get("cells").get(k).asInt(), frame.get("stacks").get(k));
+                }
+            }
+        }
+        JsonNode grid = objectMapper.readTree(((TextMessage) reference.encode(level)).getPayload());
+        List<JsonNode> expected = new ArrayList<>();
+        grid.forEach(row -> row.forEach(cell -> expected.add(cell.get("elements"))));
+        assertEquals(expected, stacks);
+        assertEquals(sent.size(), statistics.getSentFrames());
+        assertEquals(moves.size() + 1, sent.size() + statistics.getDroppedFrames());
+    }
+
+    @Test
+    void testFollowUpIsSentAfterItsFrame() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y - ", "B - - - "), "small.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.DELTA);
+        FrameSender sender = new FrameSender(session, encoder, sends::add, statistics);
+
+        sender.submit(encoder.snapshot(level));
+        level.update(Direction.RIGHT, false);
+        sender.submit(encoder.snapshot(level), List.of(MovesReply.played(1, 1)));
+        runSends();
+
+        // Merged with the frame waiting, but never dropped
+        assertEquals(2, sent.size());
+        assertEquals("key", json(0).get("type").asText());
+        assertEquals("moves", json(1).get("type").asText());
+        assertEquals(1, statistics.getSentFrames());
+    }
+
+    @Test
+    void testGreetingIsSentBeforeTheFrames() throws Exception {
+        Level level = Game.parseLevel(List.of("b i y ", "B - - "), "small.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.BINARY);
+        FrameSender sender = new FrameSender(session, encoder, sends::add, statistics);
+
+        // Queued from the game thread, sent by the sending one
+        sender.greet(encoder.greeting());
+        sender.submit(encoder.snapshot(level));
+        assertTrue(sent.isEmpty());
+        runSends();
+
+        assertEquals(2, sent.size());
+        assertEquals("elements", json(0).get("type").asText());
+        assertEquals(1, statistics.getSentFrames());
+    }
+
+    @Test
+    void testRepliesWaitingAreBounded() throws Exception {
+        FrameSender sender = new FrameSender(session, new FrameEncoder(FrameProtocol.JSON), sends::add, statistics);
+
+        // A client not reading: the replies past the limit are merged into the last one
+        for (int i = 0; i < FrameSender.MAX_REPLIES + 10; i++) {
+            sender.submit(null, List.of(MovesReply.played(3, 2)));
+        }
+        sender.submit(null, List.of(MovesReply.rejected(2000, "more than 1024 moves")));
+        runSends();
+
+        assertEquals(FrameSender.MAX_REPLIES, sent.size());
+        assertEquals("{\"type\":\"moves\",\"requested\":3,\"applied\":2}",
+                ((TextMessage) sent.get(0)).getPayload());
+        JsonNode merged = json(FrameSender.MAX_REPLIES - 1);
+        assertEquals(12, merged.get("commands").asInt());
+        assertEquals(11 * 3 + 2000, merged.get("requested").asInt());
+        assertEquals(11 * 2, merged.get("applied").asInt());
+        assertEquals("more than 1024 moves", merged.get("error").asText());
+        assertEquals(0, statistics.getSentFrames());
+    }
+
+    @Test
+    void testClosedSenderDropsItsFrames() {
+        Level level = Game.parseLevel(List.of("b i y ", "B - - "), "first.txt");
+        FrameEncoder encoder = new FrameEncoder(FrameProtocol.JSON);
+        FrameSender sender = new FrameSender(session, encoder, sends::add, statistics);
+
+        sender.submit(encoder.snapshot(level));
+        sender.close();
+        sender.submit(encoder.snapshot(level));
+        runSends();
+
+        assertTrue(sent.isEmpty());
+        assertEquals(0, statistics.getPendingFrames());
+    }
+
+    private void runSends() {
+        while (!sends.isEmpty()) {
+            sends.poll().run();
+        }
+    }
+
+    private JsonNode json(int index) throws Exception {
+        return objectMapper.readTree(((TextMessage) sent.get(index)).getPayload());
+    }
+}
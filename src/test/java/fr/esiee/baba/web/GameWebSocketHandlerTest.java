@@ -0,0 +1,70 @@
+package fr.esiee.baba.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class GameWebSocketHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEveryMovesCommandIsAnswered() throws Exception {
+        GameWebSocketHandler handler = new GameWebSocketHandler(
+                new LevelCatalog(new PathMatchingResourcePatternResolver()), new FrameStatistics(), false);
+        List<WebSocketMessage<?>> sent = new CopyOnWriteArrayList<>();
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { WebSocketSession.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "sendMessage" -> sent.add((WebSocketMessage<?>) args[0]);
+                    case "isOpen" -> true;
+                    case "getId" -> "test";
+                    case "getUri" -> URI.create("ws://localhost/game?protocol=json");
+                    default -> null;
+                });
+        try {
+            handler.afterConnectionEstablished(session);
+            // The long script keeps the game busy: the next commands queue up behind it and run in the same burst
+            handler.handleTextMessage(session, new TextMessage("MOVES:" + "LR".repeat(512)));
+            handler.handleTextMessage(session, new TextMessage("MOVES:LR"));
+            handler.handleTextMessage(session, new TextMessage("MOVES:RL"));
+            handler.handleTextMessage(session, new TextMessage("MOVES:" + "L".repeat(1025)));
+            handler.handleTextMessage(session, new TextMessage("MOVES:LXR"));
+
+            List<JsonNode> replies = new ArrayList<>();
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (replies.size() < 5) {
+                assertTrue(System.nanoTime() < deadline, "Missing replies: " + replies);
+                Thread.sleep(10);
+                replies.clear();
+                for (WebSocketMessage<?> message : sent) {
+                    JsonNode json = objectMapper.readTree(((TextMessage) message).getPayload());
+                    if (json.has("type") && json.get("type").asText().equals("moves")) {
+                        replies.add(json);
+                    }
+                }
+            }
+
+            // One reply per command, in order
+            assertEquals(List.of(1024, 2, 2, 1025, 3), replies.stream().map(r -> r.get("requested").asInt()).toList());
+            assertEquals(1024, replies.get(0).get("applied").asInt());
+            assertEquals(2, replies.get(1).get("applied").asInt());
+            assertFalse(replies.get(2).has("error"));
+            assertEquals(0, replies.get(3).get("applied").asInt());
+            assertEquals("more than 1024 moves", replies.get(3).get("error").asText());
+            assertEquals("unknown move", replies.get(4).get("error").asText());
+        } finally {
+            handler.stop();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package fr.esiee.baba.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Direction;
+import fr.esiee.baba.model.Level;
+import fr.esiee.baba.tools.LevelGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+class GridJsonEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSameJsonAsJackson() throws Exception {
+        Random random = new Random(3);
+        GridJsonEncoder encoder = new GridJsonEncoder();
+        for (Level level : new LevelCatalog(new PathMatchingResourcePatternResolver()).newLevels()) {
+            for (int step = 0; step < 60; step++) {
+                assertSameJson(encoder, level, level.getLevelFilePath() + " step " + step);
+                level.update(Direction.values()[random.nextInt(4)], false);
+            }
+        }
+    }
+
+    @Test
+    void testSameJsonOnJaggedAndLargeLevels() throws Exception {
+        GridJsonEncoder encoder = new GridJsonEncoder();
+        // Short rows are padded with cells holding nothing, which Jackson writes as empty
+        assertSameJson(encoder, Game.parseLevel(List.of("b i y p ", "B ", "   ", "r R - t "), "jagged.txt"), "jagged");
+        // Larger than the initial buffer
+        List<String> lines = LevelGenerator.generate(LevelGenerator.Settings.of(60, 80, 9));
+        assertSameJson(encoder, Game.parseLevel(lines, "generated.txt"), "generated");
+    }
+
+    @Test
+    void testFramesDoNotShareTheBuffer() {
+        GridJsonEncoder encoder = new GridJsonEncoder();
+        Level level = Game.parseLevel(List.of("b i y - ", "- - B - "), "small.txt");
+        byte[] first = encoder.encode(level.getBoard());
+        String before = new String(first, StandardCharsets.UTF_8);
+
+        level.update(Direction.RIGHT, false);
+        byte[] second = encoder.encode(level.getBoard());
+
+        assertEquals(before, new String(first, StandardCharsets.UTF_8));
+        assertNotEquals(before, new String(second, StandardCharsets.UTF_8));
+    }
+
+    private void assertSameJson(GridJsonEncoder encoder, Level level, String message) throws Exception {
+        String expected = objectMapper.writeValueAsString(level.getGrid());
+        String actual = new String(encoder.encode(level.getBoard()), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree(actual), message);
+        assertEquals(expected, actual, message);
+    }
+}
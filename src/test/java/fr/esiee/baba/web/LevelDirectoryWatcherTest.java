@@ -0,0 +1,69 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.model.Element;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class LevelDirectoryWatcherTest {
+
+    private static final List<String> REPLACEMENT = List.of("b i y ", "- B - ");
+
+    @Test
+    void testReplacedLevelOnlyReachesNewCopies() {
+        LevelCatalog catalog = new LevelCatalog(new PathMatchingResourcePatternResolver());
+        int size = catalog.size();
+        List<Level> playing = catalog.newLevels();
+
+        catalog.replace(Game.parseLevel(REPLACEMENT, "level3.txt"));
+        catalog.replace(Game.parseLevel(REPLACEMENT, "level35.txt"));
+
+        List<Level> fresh = catalog.newLevels();
+        assertEquals(size + 1, fresh.size());
+        assertEquals("level3.txt", fresh.get(3).getLevelFilePath());
+        assertEquals(2, fresh.get(3).getBoard().getHeight());
+        assertEquals("level35.txt", fresh.get(4).getLevelFilePath());
+        // Sessions already playing keep the version they started with
+        assertEquals(size, playing.size());
+        assertNotEquals(2, playing.get(3).getBoard().getHeight());
+    }
+
+    @Test
+    void testChangedFileIsReloaded() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("levels");
+        Files.write(directory.resolve("level0.txt"), REPLACEMENT);
+        LevelCatalog catalog = new LevelCatalog(new PathMatchingResourcePatternResolver());
+        LevelDirectoryWatcher watcher = new LevelDirectoryWatcher(catalog, directory.toString());
+        try {
+            watcher.start();
+            // The files present at startup are loaded right away
+            assertTrue(catalog.newLevels().get(0).getGrid().get(1).get(1).contains(Element.ENTITY_BABA));
+
+            Files.write(directory.resolve("level0.txt"), List.of("b i y ", "- - B "));
+            long deadline = System.nanoTime() + 20_000_000_000L;
+            while (!catalog.newLevels().get(0).getGrid().get(1).get(2).contains(Element.ENTITY_BABA)) {
+                assertTrue(System.nanoTime() < deadline, "The changed level was not reloaded");
+                Thread.sleep(50);
+            }
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void testWatcherIsDisabledWithoutDirectory() throws IOException {
+        LevelCatalog catalog = new LevelCatalog(new PathMatchingResourcePatternResolver());
+        LevelDirectoryWatcher watcher = new LevelDirectoryWatcher(catalog, "");
+
+        watcher.start();
+        watcher.stop();
+        assertEquals(8, catalog.size());
+    }
+}
@@ -0,0 +1,136 @@
+package fr.esiee.baba.web;
+
+import fr.esiee.baba.controller.Game;
+import fr.esiee.baba.controller.Game.GameAction;
+import fr.esiee.baba.model.Level;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SessionMailboxTest {
+
+    @Test
+    void testTasksRunOneAtATimeInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SessionMailbox mailbox = new SessionMailbox("test", executor);
+            AtomicInteger running = new AtomicInteger();
+            List<Integer> order = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(1);
+            int tasks = SessionMailbox.CAPACITY - 1;
+            for (int i = 0; i < tasks; i++) {
+                int task = i;
+                assertTrue(mailbox.post(() -> {
+                    assertEquals(1, running.incrementAndGet());
+                    // Not synchronized: the mailbox is the only guard
+                    order.add(task);
+                    running.decrementAndGet();
+                }));
+            }
+            mailbox.post(done::countDown);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, order);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testLongQueuesYieldAndFullQueuesDrop() {
+        Queue<Runnable> executor = new ArrayDeque<>();
+        SessionMailbox mailbox = new SessionMailbox("test", executor::add);
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < SessionMailbox.CAPACITY; i++) {
+            assertTrue(mailbox.post(runs::incrementAndGet));
+        }
+        assertFalse(mailbox.post(runs::incrementAndGet));
+        assertEquals(1, executor.size());
+
+        // One batch per turn on the executor
+        executor.poll().run();
+        assertEquals(SessionMailbox.MAX_BATCH, runs.get());
+        assertEquals(1, executor.size());
+        while (!executor.isEmpty()) {
+            executor.poll().run();
+        }
+        assertEquals(SessionMailbox.CAPACITY, runs.get());
+    }
+
+    @Test
+    void testBurstOfMovesRendersOnce() {
+        Queue<Runnable> executor = new ArrayDeque<>();
+        List<Level> frames = new ArrayList<>();
+        Level[] toRender = new Level[1];
+        SessionMailbox mailbox = new SessionMailbox("test", executor::add, () -> {
+            if (toRender[0] != null) {
+                frames.add(toRender[0]);
+                toRender[0] = null;
+            }
+        });
+        Level level = Game.parseLevel(List.of("b i y - - - ", "B - - - - - "), "small.txt");
+        Game game = new Game(List.of(level), rendered -> toRender[0] = rendered);
+        mailbox.post(game::start);
+        executor.poll().run();
+        assertEquals(1, frames.size());
+
+        for (int i = 0; i < 4; i++) {
+            mailbox.post(() -> game.handleAction(GameAction.MOVE_RIGHT));
+        }
+        executor.poll().run();
+
+        // One frame for the four moves, each of them undoable
+        assertEquals(2, frames.size());
+        assertEquals(4, level.getUndoDepth());
+        assertTrue(executor.isEmpty());
+    }
+
+    @Test
+    void testLongBurstsAreFlushedBeforeYielding() {
+        Queue<Runnable> executor = new ArrayDeque<>();
+        AtomicInteger flushes = new AtomicInteger();
+        SessionMailbox mailbox = new SessionMailbox("test", executor::add, flushes::incrementAndGet);
+        for (int i = 0; i < SessionMailbox.MAX_BATCH + 1; i++) {
+            mailbox.post(() -> { });
+        }
+        executor.poll().run();
+        assertEquals(1, flushes.get());
+        executor.poll().run();
+        assertEquals(2, flushes.get());
+        assertTrue(executor.isEmpty());
+    }
+
+    @Test
+    void testFailedTaskDoesNotStopTheMailbox() {
+        Queue<Runnable> executor = new ArrayDeque<>();
+        SessionMailbox mailbox = new SessionMailbox("test", executor::add);
+        AtomicInteger runs = new AtomicInteger();
+        mailbox.post(() -> {
+            throw new IllegalStateException("broken move");
+        });
+        mailbox.post(runs::incrementAndGet);
+        executor.poll().run();
+        assertEquals(1, runs.get());
+
+        mailbox.post(runs::incrementAndGet);
+        mailbox.close();
+        assertFalse(mailbox.post(runs::incrementAndGet));
+        while (!executor.isEmpty()) {
+            executor.poll().run();
+        }
+        assertEquals(1, runs.get());
+    }
+}